@@ -0,0 +1,104 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.szymon.swiftcode.model.SwiftCode;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//synthetic dataset shaped like the real file: every bank has a headquarter and BRANCHES_PER_BANK branches
+final class BenchmarkData {
+    static final int BRANCHES_PER_BANK = 9;
+
+    private static final String[][] COUNTRIES = {
+            {"PL", "POLAND", "Europe/Warsaw"},
+            {"DE", "GERMANY", "Europe/Berlin"},
+            {"US", "UNITED STATES", "America/New_York"},
+            {"FR", "FRANCE", "Europe/Paris"},
+            {"GB", "UNITED KINGDOM", "Europe/London"}
+    };
+    private static final String[] HEADER = {"COUNTRY ISO2 CODE", "SWIFT CODE", "CODE TYPE", "NAME", "ADDRESS", "TOWN NAME", "COUNTRY NAME", "TIME ZONE"};
+
+    private BenchmarkData() {
+    }
+
+    static String bankPrefix(int bank) {
+        return String.format("BK%04d%s", bank, COUNTRIES[bank % COUNTRIES.length][0]);
+    }
+
+    static String headquarterCode(int bank) {
+        return bankPrefix(bank) + "XXX";
+    }
+
+    static String branchCode(int bank, int branch) {
+        return bankPrefix(bank) + String.format("%03d", branch);
+    }
+
+    static int banks(int rows) {
+        return rows / (BRANCHES_PER_BANK + 1);
+    }
+
+    static List<SwiftCode> swiftCodes(int rows) {
+        List<SwiftCode> swiftCodes = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            String[] cells = cells(row);
+            swiftCodes.add(SwiftCode.builder()
+                    .countryISO2(cells[0])
+                    .swiftCode(cells[1])
+                    .isHeadquarter(cells[1].endsWith("XXX"))
+                    .bankName(cells[3])
+                    .address(cells[4])
+                    .city(cells[5])
+                    .country(cells[6])
+                    .timeZone(cells[7])
+                    .build());
+        }
+        return swiftCodes;
+    }
+
+    static File workbook(int rows) throws IOException {
+        File file = File.createTempFile("swift-benchmark-" + rows + "-", ".xlsx");
+        file.deleteOnExit();
+
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+             FileOutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            writeRow(sheet.createRow(0), HEADER);
+            for (int row = 0; row < rows; row++) {
+                writeRow(sheet.createRow(row + 1), cells(row));
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    private static String[] cells(int row) {
+        int bank = row / (BRANCHES_PER_BANK + 1);
+        int branch = row % (BRANCHES_PER_BANK + 1);
+        String[] country = COUNTRIES[bank % COUNTRIES.length];
+        String swiftCode = branch == 0 ? headquarterCode(bank) : branchCode(bank, branch);
+
+        return new String[]{
+                country[0],
+                swiftCode,
+                "BIC11",
+                "BENCHMARK BANK " + bank,
+                "UL. TESTOWA " + row + ", 00-001",
+                "CITY " + (bank % 50),
+                country[1],
+                country[2]
+        };
+    }
+
+    private static void writeRow(Row row, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            row.createCell(i).setCellValue(values[i]);
+        }
+    }
+}
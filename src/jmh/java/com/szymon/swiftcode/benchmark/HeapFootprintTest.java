@@ -0,0 +1,126 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.utils.SwiftCodeDictionary;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//live heap held by the snapshot, read the same way as jcmd <pid> GC.class_histogram: the histogram runs a full gc
+//and counts what survives. rows are copied into fresh strings first, the way hibernate materializes them, so
+//values are only shared when the dictionary shares them. reloads rename every bank, the dictionary should
+//follow the live dataset instead of keeping every name it has ever seen
+public final class HeapFootprintTest {
+    private static final Pattern HISTOGRAM_LINE = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+    private static final Pattern TOTAL_LINE = Pattern.compile("^Total\\s+(\\d+)\\s+(\\d+)");
+
+    private final int rows = Integer.getInteger("footprint.rows", 50_000);
+    private final int reloads = Integer.getInteger("footprint.reloads", 5);
+    private final String output = System.getProperty("footprint.output", "target/heap-footprint-result.json");
+
+    //kept reachable between measurements, like SwiftCodeIndex keeps the current one
+    private SwiftCodeSnapshot snapshot;
+
+    public record Result(String stage, int rows, long liveHeapBytes, long retainedBytes, long strings,
+                         long swiftCodes, long entries, int dictionaryValues) {
+    }
+
+    private record Histogram(long liveHeapBytes, long strings, long swiftCodes, long entries) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new HeapFootprintTest().run();
+    }
+
+    private void run() throws Exception {
+        List<Result> results = new ArrayList<>();
+        Histogram empty = histogram();
+        results.add(result("empty", 0, empty, empty));
+
+        snapshot = SwiftCodeSnapshot.of(load(0, false));
+        results.add(result("without dictionary", rows, histogram(), empty));
+        snapshot = null;
+
+        for (int generation = 0; generation <= reloads; generation++) {
+            snapshot = SwiftCodeSnapshot.of(load(generation, true));
+            results.add(result(generation == 0 ? "with dictionary" : "reload " + generation, rows, histogram(), empty));
+        }
+
+        System.out.printf("%-20s %14s %14s %10s %10s %10s %12s%n",
+                "stage", "live heap MB", "retained MB", "String", "SwiftCode", "entries", "dictionary");
+        for (Result result : results) {
+            System.out.printf("%-20s %14.1f %14.1f %10d %10d %10d %12d%n", result.stage(),
+                    result.liveHeapBytes() / 1e6, result.retainedBytes() / 1e6, result.strings(),
+                    result.swiftCodes(), result.entries(), result.dictionaryValues());
+        }
+
+        File outputFile = new File(output);
+        outputFile.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(outputFile, results);
+        System.out.println("Results written to " + outputFile.getAbsolutePath());
+    }
+
+    //every value a fresh instance; a generation above 0 renames the banks, as a reload of a changed file would
+    private List<SwiftCode> load(int generation, boolean dictionary) {
+        List<SwiftCode> loaded = new ArrayList<>(rows);
+        for (SwiftCode source : BenchmarkData.swiftCodes(rows)) {
+            SwiftCode swiftCode = SwiftCode.builder()
+                    .swiftCode(new String(source.getSwiftCode()))
+                    .countryISO2(new String(source.getCountryISO2()))
+                    .country(new String(source.getCountry()))
+                    .timeZone(new String(source.getTimeZone()))
+                    .bankName(generation == 0 ? new String(source.getBankName()) : source.getBankName() + " R" + generation)
+                    .bankPrefix(source.getSwiftCode().substring(0, 8))
+                    .city(new String(source.getCity()))
+                    .address(new String(source.getAddress()))
+                    .isHeadquarter(source.isHeadquarter())
+                    .build();
+            loaded.add(dictionary ? SwiftCodeDictionary.encode(swiftCode) : swiftCode);
+        }
+        return loaded;
+    }
+
+    private static Result result(String stage, int rows, Histogram histogram, Histogram empty) {
+        return new Result(stage, rows, histogram.liveHeapBytes(), histogram.liveHeapBytes() - empty.liveHeapBytes(),
+                histogram.strings(), histogram.swiftCodes(), histogram.entries(), SwiftCodeDictionary.size());
+    }
+
+    //GC.class_histogram through the DiagnosticCommand mbean, so no jcmd process or pid is needed
+    private static Histogram histogram() throws Exception {
+        String text = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[]{new String[0]}, new String[]{String[].class.getName()});
+
+        long total = 0;
+        long strings = 0;
+        long swiftCodes = 0;
+        long entries = 0;
+        for (String line : text.split("\n")) {
+            Matcher matcher = HISTOGRAM_LINE.matcher(line);
+            if (matcher.find()) {
+                long instances = Long.parseLong(matcher.group(1));
+                switch (matcher.group(3)) {
+                    case "java.lang.String" -> strings = instances;
+                    case "com.szymon.swiftcode.model.SwiftCode" -> swiftCodes = instances;
+                    case "com.szymon.swiftcode.index.SwiftCodeEntry" -> entries = instances;
+                    default -> {
+                    }
+                }
+                continue;
+            }
+            Matcher totalMatcher = TOTAL_LINE.matcher(line);
+            if (totalMatcher.find()) {
+                total = Long.parseLong(totalMatcher.group(2));
+            }
+        }
+        return new Histogram(total, strings, swiftCodes, entries);
+    }
+}
@@ -0,0 +1,59 @@
+package com.szymon.swiftcode.benchmark;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+
+//sleeps before every statement execution, stands in for a slow or far away database
+final class LatencyDataSource extends DelegatingDataSource {
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch", "executeLargeUpdate");
+    private static final Map<String, Class<?>> STATEMENT_FACTORIES = Map.of(
+            "createStatement", Statement.class,
+            "prepareStatement", PreparedStatement.class,
+            "prepareCall", CallableStatement.class);
+
+    private final long latencyMillis;
+
+    LatencyDataSource(DataSource target, long latencyMillis) {
+        super(target);
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Object target) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (target instanceof Statement && EXECUTE_METHODS.contains(method.getName())) {
+                Thread.sleep(latencyMillis);
+            }
+            try {
+                Object result = method.invoke(target, args);
+                Class<?> statementType = STATEMENT_FACTORIES.get(method.getName());
+                if (target instanceof Connection && statementType != null) {
+                    return proxy(statementType, result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.mapper.SwiftCodeMapper;
+import com.szymon.swiftcode.model.SwiftCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwiftCodeMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int branches;
+
+    private SwiftCode headquarter;
+    private List<SwiftCode> branchCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<SwiftCode> swiftCodes = BenchmarkData.swiftCodes(branches + 1);
+        headquarter = swiftCodes.getFirst();
+        branchCodes = swiftCodes.subList(1, swiftCodes.size());
+    }
+
+    @Benchmark
+    public BranchDTO toBranchDTO() {
+        return SwiftCodeMapper.toBranchDTO(headquarter);
+    }
+
+    @Benchmark
+    public HeadquarterDTO toHeadquarterDTO() {
+        return SwiftCodeMapper.toHeadquarterDTO(headquarter, branchCodes);
+    }
+}
@@ -0,0 +1,58 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.szymon.swiftcode.loader.DirectoryFileReader;
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//workbook parsing only, nothing is written
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SwiftCodeParserBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+
+    private File file;
+    private SwiftCodeParser parser;
+    private DirectoryFileReader fileReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkData.workbook(rows);
+        parser = new SwiftCodeParser();
+
+        //the first read parses and writes the snapshot, every measured one reads it back
+        fileReader = new DirectoryFileReader(parser);
+        ReflectionTestUtils.setField(fileReader, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(fileReader, "snapshotPath", file.getPath() + ".snapshot");
+        fileReader.streamRows(file, cells -> {
+        });
+        new File(file.getPath() + ".snapshot").deleteOnExit();
+    }
+
+    @Benchmark
+    public void streamRows(Blackhole blackhole) throws IOException {
+        parser.streamRows(file, blackhole::consume);
+    }
+
+    //rows mapped to entities the way the import does, before they're batched for the database
+    @Benchmark
+    public void streamSwiftCodes(Blackhole blackhole) throws IOException {
+        parser.streamRows(file, cells -> blackhole.consume(parser.toSwiftCode(cells)));
+    }
+
+    @Benchmark
+    public void streamRowsFromSnapshot(Blackhole blackhole) throws IOException {
+        fileReader.streamRows(file, blackhole::consume);
+    }
+}
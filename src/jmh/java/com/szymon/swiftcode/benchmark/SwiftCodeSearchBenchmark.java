@@ -0,0 +1,43 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.szymon.swiftcode.index.SwiftCodeEntry;
+import com.szymon.swiftcode.index.SwiftCodeNgramIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//every synthetic bank is called "BENCHMARK BANK n", so the common words hit every row - the worst case for the index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwiftCodeSearchBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+
+    private SwiftCodeNgramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = SwiftCodeNgramIndex.of(BenchmarkData.swiftCodes(rows).stream().map(SwiftCodeEntry::of).toList());
+    }
+
+    @Benchmark
+    public List<SwiftCodeNgramIndex.Hit> selectiveWord() {
+        return index.search("testowa 777", null, 20);
+    }
+
+    @Benchmark
+    public List<SwiftCodeNgramIndex.Hit> bankAndCity() {
+        return index.search("benchmark bank 42 city 42", null, 20);
+    }
+
+    @Benchmark
+    public List<SwiftCodeNgramIndex.Hit> typoInCountry() {
+        return index.search("benchmrak 42", "PL", 20);
+    }
+}
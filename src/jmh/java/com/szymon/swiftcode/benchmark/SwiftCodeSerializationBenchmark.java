@@ -0,0 +1,47 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.mapper.SwiftCodeMapper;
+import com.szymon.swiftcode.model.SwiftCode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//same ObjectMapper defaults as the one Spring MVC writes responses with
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwiftCodeSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int branches;
+
+    private ObjectMapper objectMapper;
+    private List<SwiftCode> swiftCodes;
+    private HeadquarterDTO headquarterDTO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        swiftCodes = BenchmarkData.swiftCodes(branches + 1);
+        headquarterDTO = SwiftCodeMapper.toHeadquarterDTO(swiftCodes.getFirst(), swiftCodes.subList(1, swiftCodes.size()));
+    }
+
+    @Benchmark
+    public byte[] serializeHeadquarter() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(headquarterDTO);
+    }
+
+    //what a request costs without the response cache
+    @Benchmark
+    public byte[] mapAndSerializeHeadquarter() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(SwiftCodeMapper.toHeadquarterDTO(swiftCodes.getFirst(), swiftCodes.subList(1, swiftCodes.size())));
+    }
+}
@@ -0,0 +1,81 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.szymon.swiftcode.SwiftCodeApiApplication;
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
+import com.szymon.swiftcode.service.SwiftCodeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//full application context on an in-memory H2 database, loaded through the regular DataLoader
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class SwiftCodeServiceBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int BANKS = ROWS / (BenchmarkData.BRANCHES_PER_BANK + 1);
+
+    //where reads are served from: the in-memory snapshot, the bounded query cache or the database on every call
+    @Param({"snapshot", "query-cache", "database"})
+    public String readModel;
+
+    private ConfigurableApplicationContext context;
+    private SwiftCodeService service;
+    private List<String> lookupCodes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File file = BenchmarkData.workbook(ROWS);
+        //passed as arguments, default properties would lose against application.properties
+        context = new SpringApplicationBuilder(SwiftCodeApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--swift.data-file-path=" + file.getAbsolutePath(),
+                        "--swift.import.async=false",
+                        "--swift.snapshot.enabled=" + readModel.equals("snapshot"),
+                        "--swift.query-cache.enabled=" + readModel.equals("query-cache"));
+        service = context.getBean(SwiftCodeService.class);
+
+        lookupCodes = new ArrayList<>();
+        for (int bank = 0; bank < 100; bank++) {
+            lookupCodes.add(BenchmarkData.headquarterCode(bank * (BANKS / 100)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BranchDTO getHeadquarterDetails() {
+        return service.getSwiftDetails(BenchmarkData.headquarterCode(ThreadLocalRandom.current().nextInt(BANKS)));
+    }
+
+    @Benchmark
+    public CountryISO2CodeDTO getSwiftCodesByCountry() {
+        return service.getSwiftCodesByCountry("PL");
+    }
+
+    @Benchmark
+    public SwiftCodeLookupResponse lookupHundredCodes() {
+        return service.lookupSwiftCodes(lookupCodes);
+    }
+}
@@ -0,0 +1,166 @@
+package com.szymon.swiftcode.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.szymon.swiftcode.SwiftCodeApiApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+//closed-loop load test: the same app runs once on platform and once on virtual threads, with every
+//statement delayed by load.db-latency-ms. Defaults make the tomcat pool smaller than the connection pool,
+//so platform threads are the limit and virtual threads are limited by the connection pool only
+public final class ThreadModeLoadTest {
+    private static final int ROWS = 5_000;
+
+    private final int clients = Integer.getInteger("load.clients", 400);
+    private final int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+    private final int seconds = Integer.getInteger("load.seconds", 15);
+    private final long dbLatencyMillis = Long.getLong("load.db-latency-ms", 20);
+    private final int tomcatThreads = Integer.getInteger("load.tomcat-threads", 50);
+    private final int poolSize = Integer.getInteger("load.pool-size", 100);
+    private final String output = System.getProperty("load.output", "target/load-test-result.json");
+
+    public record Result(String mode, int clients, long dbLatencyMillis, int tomcatThreads, int poolSize,
+                         long requests, long errors, double requestsPerSecond,
+                         double p50Millis, double p99Millis, double maxMillis) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        //devtools is on the test classpath, its restarter would run the app on its own thread and classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        new ThreadModeLoadTest().run();
+    }
+
+    private void run() throws Exception {
+        File file = BenchmarkData.workbook(ROWS);
+        List<Result> results = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            results.add(runMode(virtual, file));
+        }
+
+        System.out.printf("%-10s %10s %8s %10s %10s %10s%n", "mode", "req/s", "errors", "p50 ms", "p99 ms", "max ms");
+        for (Result result : results) {
+            System.out.printf("%-10s %10.0f %8d %10.1f %10.1f %10.1f%n", result.mode(), result.requestsPerSecond(),
+                    result.errors(), result.p50Millis(), result.p99Millis(), result.maxMillis());
+        }
+
+        File outputFile = new File(output);
+        outputFile.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(outputFile, results);
+        System.out.println("Results written to " + outputFile.getAbsolutePath());
+    }
+
+    private Result runMode(boolean virtual, File file) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        //snapshot and caches off, every request has to go to the database
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SwiftCodeApiApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(latencyInjector()))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--swift.data-file-path=" + file.getAbsolutePath(),
+                        "--swift.import.async=false",
+                        "--swift.snapshot.enabled=false",
+                        "--swift.response-cache.enabled=false",
+                        "--swift.query-cache.enabled=false");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            load(port, warmupSeconds, null);
+
+            Recorder recorder = new Recorder();
+            load(port, seconds, recorder);
+            return recorder.result(mode);
+        } finally {
+            context.close();
+        }
+    }
+
+    private BeanPostProcessor latencyInjector() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? new LatencyDataSource(dataSource, dbLatencyMillis) : bean;
+            }
+        };
+    }
+
+    private void load(int port, int durationSeconds, Recorder recorder) throws Exception {
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        int banks = BenchmarkData.banks(ROWS);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).build()) {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                workers.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        String swiftCode = BenchmarkData.branchCode(ThreadLocalRandom.current().nextInt(banks),
+                                1 + ThreadLocalRandom.current().nextInt(BenchmarkData.BRANCHES_PER_BANK));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/swift-codes/" + swiftCode)).build();
+
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200 && recorder != null) recorder.errors.increment();
+                        } catch (Exception e) {
+                            if (recorder != null) recorder.errors.increment();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return latencies.stream().mapToLong(Long::longValue).toArray();
+                }));
+            }
+            for (Future<long[]> worker : workers) {
+                long[] latencies = worker.get();
+                if (recorder != null) recorder.add(latencies);
+            }
+        }
+        if (recorder != null) recorder.seconds = durationSeconds;
+    }
+
+    private final class Recorder {
+        private final LongAdder errors = new LongAdder();
+        private final List<long[]> latencies = new ArrayList<>();
+        private int seconds;
+
+        void add(long[] clientLatencies) {
+            latencies.add(clientLatencies);
+        }
+
+        Result result(String mode) {
+            long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(mode, clients, dbLatencyMillis, tomcatThreads, poolSize,
+                    all.length, errors.sum(), all.length / (double) seconds,
+                    percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        }
+
+        private double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
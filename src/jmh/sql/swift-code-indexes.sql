@@ -0,0 +1,61 @@
+-- query plans and timings of the repository queries before and after the swift_code indexes, on 1M rows
+-- psql -d swift_db -f src/jmh/sql/swift-code-indexes.sql
+-- everything lives in its own schema and is dropped at the end, the application table is not touched
+
+DROP SCHEMA IF EXISTS index_benchmark CASCADE;
+CREATE SCHEMA index_benchmark;
+
+-- old schema: primary key only
+CREATE TABLE index_benchmark.swift_code_before (
+    id             bigserial PRIMARY KEY,
+    swift_code     varchar(11),
+    iso2           varchar(255),
+    is_headquarter boolean NOT NULL,
+    bank_name      varchar(255),
+    address        varchar(255),
+    city           varchar(255),
+    country        varchar(255),
+    time_zone      varchar(255)
+);
+
+-- 100 000 banks in 100 countries, each a headquarter (XXX) and 9 branches
+INSERT INTO index_benchmark.swift_code_before (swift_code, iso2, is_headquarter, bank_name, address, city, country, time_zone)
+SELECT lpad(bank::text, 6, '0') || chr(65 + bank % 100 / 10) || chr(65 + bank % 10)
+           || CASE WHEN branch = 0 THEN 'XXX' ELSE lpad(branch::text, 3, '0') END,
+       chr(65 + bank % 100 / 10) || chr(65 + bank % 10),
+       branch = 0,
+       'BANK ' || bank,
+       'STREET ' || branch || ', CITY ' || bank % 1000,
+       'CITY ' || bank % 1000,
+       'COUNTRY ' || bank % 100,
+       'Europe/Warsaw'
+FROM generate_series(0, 99999) AS bank, generate_series(0, 9) AS branch;
+
+-- new schema: same rows plus bank_prefix and the indexes declared on the SwiftCode entity
+CREATE TABLE index_benchmark.swift_code_after (LIKE index_benchmark.swift_code_before INCLUDING DEFAULTS);
+ALTER TABLE index_benchmark.swift_code_after ADD PRIMARY KEY (id), ADD COLUMN bank_prefix varchar(8);
+INSERT INTO index_benchmark.swift_code_after SELECT *, substring(swift_code, 1, 8) FROM index_benchmark.swift_code_before;
+CREATE UNIQUE INDEX ux_swift_code_swift_code ON index_benchmark.swift_code_after (swift_code);
+CREATE INDEX ix_swift_code_iso2_swift_code ON index_benchmark.swift_code_after (iso2, swift_code);
+CREATE INDEX ix_swift_code_bank_prefix ON index_benchmark.swift_code_after (bank_prefix, is_headquarter);
+
+VACUUM ANALYZE index_benchmark.swift_code_before;
+VACUUM ANALYZE index_benchmark.swift_code_after;
+
+-- findBySwiftCode / existsBySwiftCode
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_before WHERE swift_code = '054321CBXXX';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_after WHERE swift_code = '054321CBXXX';
+
+-- headquarter -> branches: prefix LIKE vs equality on bank_prefix
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_before WHERE swift_code LIKE '054321CB%' AND is_headquarter = false;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_after WHERE bank_prefix = '054321CB' AND is_headquarter = false;
+
+-- findByCountryISO2IgnoreCase vs findByCountryISO2 with a normalized argument
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_before WHERE upper(iso2) = upper('cb');
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_after WHERE iso2 = 'CB';
+
+-- keyset page of a country listing
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_before WHERE upper(iso2) = upper('cb') AND swift_code > '050021CB005' ORDER BY swift_code LIMIT 101;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM index_benchmark.swift_code_after WHERE iso2 = 'CB' AND swift_code > '050021CB005' ORDER BY swift_code LIMIT 101;
+
+DROP SCHEMA index_benchmark CASCADE;
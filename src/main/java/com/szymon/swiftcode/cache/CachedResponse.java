@@ -0,0 +1,9 @@
+package com.szymon.swiftcode.cache;
+
+//gzipBody is null for bodies too small to be worth compressing
+public record CachedResponse(long version, byte[] body, String etag, byte[] gzipBody, String gzipEtag) {
+
+    public boolean hasGzip() {
+        return gzipBody != null;
+    }
+}
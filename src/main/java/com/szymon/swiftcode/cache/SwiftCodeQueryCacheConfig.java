@@ -0,0 +1,47 @@
+package com.szymon.swiftcode.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+//bounded caches in front of the repository reads used when the snapshot is off
+@Configuration
+@EnableCaching
+public class SwiftCodeQueryCacheConfig {
+    public static final String SWIFT_CODE_DETAILS = "swiftCodeDetails";
+    public static final String COUNTRIES = "countries";
+
+    @Value("${swift.query-cache.enabled:true}")
+    private boolean enabled;
+
+    //counted in rows, a list weighs as much as its elements so a few countries can't take all the space
+    @Value("${swift.query-cache.max-rows:10000}")
+    private long maxRows;
+
+    @Value("${swift.query-cache.ttl:10m}")
+    private Duration ttl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        if (!enabled) return new NoOpCacheManager();
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Object key, Object value) -> value instanceof Collection<?> rows ? Math.max(1, rows.size()) : 1)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        //fixed names, caches are created up front so actuator binds their metrics at startup
+        cacheManager.setCacheNames(List.of(SWIFT_CODE_DETAILS, COUNTRIES));
+        return cacheManager;
+    }
+}
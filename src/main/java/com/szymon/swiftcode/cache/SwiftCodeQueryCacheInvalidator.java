@@ -0,0 +1,78 @@
+package com.szymon.swiftcode.cache;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Locale;
+
+//evicts exactly the entries a committed change touches, runs before the response cache rebuilds from them
+@Component
+@RequiredArgsConstructor
+public class SwiftCodeQueryCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(DatasetReloadedEvent.class)
+    public void onDatasetReloaded() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        Cache details = cacheManager.getCache(SwiftCodeQueryCacheConfig.SWIFT_CODE_DETAILS);
+        Cache countries = cacheManager.getCache(SwiftCodeQueryCacheConfig.COUNTRIES);
+        if (details == null || countries == null) return;
+
+        for (SwiftCodeChangedEvent.Change change : event.changes()) {
+            String swiftCode = change.swiftCode();
+            //deletes carry no entity, the cached row (if any) still knows whether it was a headquarter
+            SwiftCodeRow row = change.entity() != null ? toRow(change.entity()) : cachedRow(details, swiftCode);
+
+            details.evict(swiftCode);
+            //the parent headquarter's entry lists this branch, its code is the prefix with or without XXX
+            if (row == null || !row.isHeadquarter()) {
+                String bankPrefix = SwiftCode.bankPrefixOf(swiftCode);
+                details.evict(bankPrefix);
+                details.evict(bankPrefix + "XXX");
+            }
+            String countryISO2 = change.countryISO2() != null ? change.countryISO2() : row != null ? row.countryISO2() : null;
+            if (countryISO2 != null) {
+                countries.evict(countryISO2.toUpperCase(Locale.ROOT));
+            } else {
+                //a change that doesn't know its country can't be narrowed down to one entry
+                countries.clear();
+            }
+        }
+    }
+
+    private static SwiftCodeRow cachedRow(Cache details, String swiftCode) {
+        List<?> rows = details.get(swiftCode, List.class);
+        if (rows == null) return null;
+
+        return rows.stream()
+                .map(SwiftCodeRow.class::cast)
+                .filter(row -> row.swiftCode().equals(swiftCode))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static SwiftCodeRow toRow(SwiftCode entity) {
+        return new SwiftCodeRow(entity.getSwiftCode(), entity.getBankName(), entity.getAddress(),
+                entity.getCountryISO2(), entity.getCountry(), entity.isHeadquarter());
+    }
+}
@@ -0,0 +1,174 @@
+package com.szymon.swiftcode.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+//final response bytes of the read endpoints, an entry is only served for the dataset version it was built from
+//the number of keys is bounded by the dataset, misses end in a 404 and are never stored
+@Component
+public class SwiftCodeResponseCache {
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final AtomicLong datasetVersion = new AtomicLong();
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    //keyed by key and version, a load started before a change is never handed to requests that came after it
+    private final SingleFlight<String, CachedResponse> loads = new SingleFlight<>();
+
+    @Value("${swift.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${swift.response-cache.gzip-min-size:1024}")
+    private int gzipMinSize;
+
+    public SwiftCodeResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        Gauge.builder("swift.response.cache.size", entries, Map::size)
+                .description("Responses currently stored")
+                .register(meterRegistry);
+        //a subset of the misses: requests that waited for the same response being built by another request
+        FunctionCounter.builder("swift.response.cache.requests", loads, SingleFlight::sharedCalls)
+                .description("Response cache lookups")
+                .tag("result", "shared")
+                .register(meterRegistry);
+    }
+
+    //the version is read before loading, so a response built while the data changed is never served as current
+    public CachedResponse get(String key, Supplier<Object> loader) {
+        long version = datasetVersion.get();
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached;
+        }
+
+        //after an invalidation every request for a hot key misses at once, only one of them loads it
+        misses.increment();
+        return loads.execute(key + '@' + version, () -> store(key, version, loader.get()));
+    }
+
+    //for callers that must not wait on another request's load, they load a miss themselves and hand it to put
+    public CachedResponse getIfCurrent(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null && cached.version() == datasetVersion.get()) {
+            hits.increment();
+            return cached;
+        }
+        return null;
+    }
+
+    //version is the one read before loading the value
+    public CachedResponse put(String key, long version, Object value) {
+        misses.increment();
+        return store(key, version, value);
+    }
+
+    //for a body that was already written out piece by piece, e.g. a streamed country listing
+    public CachedResponse putSerialized(String key, long version, byte[] body) {
+        misses.increment();
+        return store(key, toResponse(version, body));
+    }
+
+    public long getDatasetVersion() {
+        return datasetVersion.get();
+    }
+
+    public void invalidate() {
+        datasetVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    //runs after the snapshot listeners, a reader seeing the new version must also see the new data
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(DatasetReloadedEvent.class)
+    public void onDatasetReloaded() {
+        invalidate();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        invalidate();
+    }
+
+    private CachedResponse store(String key, long version, Object value) {
+        return store(key, serialize(version, value));
+    }
+
+    private CachedResponse store(String key, CachedResponse response) {
+        if (enabled) {
+            entries.put(key, response);
+        }
+        return response;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("swift.response.cache.requests")
+                .description("Response cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private CachedResponse serialize(long version, Object value) {
+        try {
+            return toResponse(version, objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response: " + e.getMessage(), e);
+        }
+    }
+
+    private CachedResponse toResponse(long version, byte[] body) {
+        String etag = etag(body);
+        if (body.length < gzipMinSize) {
+            return new CachedResponse(version, body, etag, null, null);
+        }
+        return new CachedResponse(version, body, etag, gzip(body), etag.substring(0, etag.length() - 1) + "-gzip\"");
+    }
+
+    //strong etag from the content, unchanged responses keep their etag across dataset versions
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -1,29 +1,107 @@
 package com.szymon.swiftcode.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.szymon.swiftcode.cache.CachedResponse;
+import com.szymon.swiftcode.cache.SwiftCodeResponseCache;
 import com.szymon.swiftcode.dto.MessageResponse;
 import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
+import com.szymon.swiftcode.dto.SwiftCodeLookupRequest;
+import com.szymon.swiftcode.dto.WriteStatusDTO;
 import com.szymon.swiftcode.service.SwiftCodeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/v1/swift-codes")
 @RequiredArgsConstructor
 public class SwiftController {
     private final SwiftCodeService swiftCodeService;
+    private final SwiftCodeResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${swift.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
 
     @GetMapping("/{swiftCode}")
-    public ResponseEntity<?> getSwiftDetails(@PathVariable String swiftCode) {
-        return ResponseEntity.ok(swiftCodeService.getSwiftDetails(swiftCode));
+    public ResponseEntity<?> getSwiftDetails(@PathVariable String swiftCode, WebRequest request) {
+        CachedResponse response = responseCache.get("code:" + swiftCode, () -> swiftCodeService.getSwiftDetails(swiftCode));
+        return cachedJson(response, request);
+    }
+
+    //ranked by how much of the query matches bank name, city or address; prefixes and small typos still match
+    @GetMapping("/search")
+    public ResponseEntity<?> searchSwiftCodes(@RequestParam(defaultValue = "") String q,
+                                              @RequestParam(required = false) String countryISO2,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(swiftCodeService.searchSwiftCodes(q, countryISO2, limit));
+    }
+
+    //kept up to date on every write, answered without touching the data
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStatistics() {
+        return ResponseEntity.ok(swiftCodeService.getStatistics());
+    }
+
+    @GetMapping("/stats/country/{countryISO2}")
+    public ResponseEntity<?> getCountryStatistics(@PathVariable String countryISO2) {
+        return ResponseEntity.ok(swiftCodeService.getCountryStatistics(countryISO2));
     }
 
     @GetMapping("/country/{countryISO2}")
-    public ResponseEntity<?> getSwiftByCountry(@PathVariable String countryISO2) {
-        return ResponseEntity.ok(swiftCodeService.getSwiftCodesByCountry(countryISO2));
+    public ResponseEntity<?> getSwiftByCountry(@PathVariable String countryISO2, WebRequest request) {
+        //pl and PL are the same listing, one entry and one etag for both
+        String country = countryISO2.toUpperCase(Locale.ROOT);
+        CachedResponse response = responseCache.get("country:" + country, () -> swiftCodeService.getSwiftCodesByCountry(country));
+        return cachedJson(response, request);
+    }
+
+    @GetMapping(value = "/country/{countryISO2}", params = "limit")
+    public ResponseEntity<?> getSwiftByCountryPage(@PathVariable String countryISO2,
+                                                   @RequestParam int limit,
+                                                   @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(swiftCodeService.getSwiftCodesByCountryPage(countryISO2, after, limit));
+    }
+
+    @GetMapping(value = "/country/{countryISO2}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSwiftByCountry(@PathVariable String countryISO2) {
+        swiftCodeService.checkCountryExists(countryISO2);
+
+        StreamingResponseBody body = outputStream -> {
+            boolean[] first = {true};
+            swiftCodeService.streamSwiftCodesByCountry(countryISO2, branchDTO -> {
+                writeLine(outputStream, branchDTO, first[0]);
+                first[0] = false;
+            });
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookupSwiftCodes(@Valid @RequestBody SwiftCodeLookupRequest request) {
+        return ResponseEntity.ok(swiftCodeService.lookupSwiftCodes(request.getSwiftCodes()));
     }
 
     @DeleteMapping("/{swiftCode}")
@@ -32,9 +110,101 @@ public class SwiftController {
         return ResponseEntity.ok(new MessageResponse(message));
     }
 
+    //prefer: respond-async is honoured only with write-behind enabled, otherwise the add is synchronous as usual
     @PostMapping
-    public ResponseEntity<?> addSwift(@Valid @RequestBody BranchDTO branchDTO) {
+    public ResponseEntity<?> addSwift(@Valid @RequestBody BranchDTO branchDTO,
+                                      @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (prefer != null && prefer.contains("respond-async") && swiftCodeService.acceptsBufferedWrites()) {
+            WriteStatusDTO status = swiftCodeService.addSwiftCodeBuffered(branchDTO);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/v1/swift-codes/" + status.getSwiftCode() + "/write-status"))
+                    .header("Preference-Applied", "respond-async")
+                    .body(status);
+        }
         String message = swiftCodeService.addSwiftCode(branchDTO);
         return ResponseEntity.status(HttpStatus.CREATED).body(new MessageResponse(message));
     }
+
+    @GetMapping("/{swiftCode}/write-status")
+    public ResponseEntity<?> getWriteStatus(@PathVariable String swiftCode) {
+        return ResponseEntity.ok(swiftCodeService.getWriteStatus(swiftCode));
+    }
+
+    //items are validated one by one, an invalid entry is reported in the response instead of failing the whole request
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> addSwiftBulk(@RequestBody List<BranchDTO> branchDTOs) {
+        return ResponseEntity.ok(swiftCodeService.addSwiftCodes(branchDTOs));
+    }
+
+    //the body is read line by line and written chunk by chunk, a large upload is never held in memory as a whole
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> addSwiftBulkNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(inChunks(body, objectMapper.readerFor(BranchDTO.class), swiftCodeService::addSwiftCodes));
+    }
+
+    @DeleteMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> deleteSwiftBulk(@RequestBody List<String> swiftCodes) {
+        return ResponseEntity.ok(swiftCodeService.deleteSwiftCodes(swiftCodes));
+    }
+
+    @DeleteMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> deleteSwiftBulkNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(inChunks(body, objectMapper.readerFor(String.class), swiftCodeService::deleteSwiftCodes));
+    }
+
+    //304 when If-None-Match matches, otherwise the stored bytes as they are
+    private static ResponseEntity<byte[]> cachedJson(CachedResponse response, WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = response.hasGzip() && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? response.gzipEtag() : response.etag();
+
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag);
+        if (response.hasGzip()) {
+            builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzipBody());
+        }
+        return builder.body(response.body());
+    }
+
+    //the first row is flushed right away, the rest goes out whenever the response buffer fills up
+    private void writeLine(OutputStream outputStream, Object value, boolean flush) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+            if (flush) {
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //one json value per line, blank lines are skipped. every chunk is its own transaction, so the chunks before a
+    //malformed line stay written
+    private <T> BulkOperationResponse inChunks(InputStream body, ObjectReader reader,
+                                               Function<List<T>, BulkOperationResponse> operation) throws IOException {
+        List<BulkOperationResponse> responses = new ArrayList<>();
+        try (MappingIterator<T> values = reader.readValues(body)) {
+            List<T> chunk = new ArrayList<>();
+            while (values.hasNextValue()) {
+                chunk.add(values.nextValue());
+                if (chunk.size() == bulkChunkSize) {
+                    responses.add(operation.apply(chunk));
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                responses.add(operation.apply(chunk));
+            }
+        }
+        return BulkOperationResponse.combine(responses);
+    }
 }
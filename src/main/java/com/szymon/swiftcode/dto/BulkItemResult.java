@@ -0,0 +1,25 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    public enum Status {
+        CREATED,
+        DELETED,
+        DUPLICATE,
+        NOT_FOUND,
+        INVALID,
+        PENDING
+    }
+
+    private String swiftCode;
+    private Status status;
+    private String message;
+}
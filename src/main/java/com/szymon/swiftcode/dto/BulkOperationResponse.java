@@ -0,0 +1,34 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOperationResponse {
+    private int succeeded;
+    private int failed;
+
+    //same order as the request items
+    private List<BulkItemResult> results;
+
+    //one response for a request that was written in several chunks, results stay in request order
+    public static BulkOperationResponse combine(List<BulkOperationResponse> chunks) {
+        List<BulkItemResult> results = new ArrayList<>();
+        int succeeded = 0;
+        int failed = 0;
+        for (BulkOperationResponse chunk : chunks) {
+            succeeded += chunk.getSucceeded();
+            failed += chunk.getFailed();
+            results.addAll(chunk.getResults());
+        }
+        return new BulkOperationResponse(succeeded, failed, results);
+    }
+}
@@ -0,0 +1,20 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryStatisticsDTO {
+    private String countryISO2;
+    private String countryName;
+
+    private long headquarters;
+    private long branches;
+    //distinct bank codes, the first four characters of a SWIFT code
+    private int banks;
+}
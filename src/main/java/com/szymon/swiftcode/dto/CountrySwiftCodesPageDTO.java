@@ -0,0 +1,22 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountrySwiftCodesPageDTO {
+    private String countryISO2;
+    private String countryName;
+
+    private List<BranchDTO> swiftCodes;
+
+    //pass as "after" to get the next page, null on the last one
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.szymon.swiftcode.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwiftCodeLookupRequest {
+    @NotEmpty(message = "Swift codes cannot be empty")
+    @Size(max = 10000, message = "At most 10000 swift codes can be looked up at once")
+    private List<@NotBlank(message = "Swift code cannot be empty") String> swiftCodes;
+}
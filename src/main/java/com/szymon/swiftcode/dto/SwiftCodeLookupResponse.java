@@ -0,0 +1,17 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwiftCodeLookupResponse {
+    private List<BranchDTO> found;
+    private List<String> notFound;
+}
@@ -0,0 +1,16 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwiftCodeSearchResultDTO extends BranchDTO {
+    private String city;
+
+    //0..1, how much of the query was found and in which field
+    private double score;
+}
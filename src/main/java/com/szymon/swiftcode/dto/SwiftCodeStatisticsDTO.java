@@ -0,0 +1,21 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwiftCodeStatisticsDTO {
+    private long headquarters;
+    private long branches;
+    private int banks;
+    private int countryCount;
+
+    private List<CountryStatisticsDTO> countries;
+}
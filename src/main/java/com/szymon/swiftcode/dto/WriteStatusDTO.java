@@ -0,0 +1,22 @@
+package com.szymon.swiftcode.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteStatusDTO {
+    public enum Status {
+        PENDING,
+        PERSISTED,
+        FAILED
+    }
+
+    private String swiftCode;
+    private Status status;
+    private String message;
+}
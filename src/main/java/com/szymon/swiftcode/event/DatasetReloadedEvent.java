@@ -0,0 +1,14 @@
+package com.szymon.swiftcode.event;
+
+//published by the loader once the table content is ready to be read
+//tableChanged is false when the loader found the data already in place, remote when another instance reloaded it
+public record DatasetReloadedEvent(boolean tableChanged, boolean remote) {
+
+    public static DatasetReloadedEvent local(boolean tableChanged) {
+        return new DatasetReloadedEvent(tableChanged, false);
+    }
+
+    public static DatasetReloadedEvent fromOtherInstance() {
+        return new DatasetReloadedEvent(true, true);
+    }
+}
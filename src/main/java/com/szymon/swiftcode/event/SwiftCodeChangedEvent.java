@@ -0,0 +1,43 @@
+package com.szymon.swiftcode.event;
+
+import com.szymon.swiftcode.model.SwiftCode;
+
+import java.util.List;
+
+//one event per committed write, bulk writes carry all their changes in a single event
+//remote events replay a write made by another instance, they are applied locally but not sent on again
+public record SwiftCodeChangedEvent(List<Change> changes, boolean remote) {
+
+    public SwiftCodeChangedEvent(List<Change> changes) {
+        this(changes, false);
+    }
+
+    public enum Operation {
+        ADDED,
+        DELETED
+    }
+
+    //deletes carry no entity, only the country the deleted row belonged to
+    public record Change(Operation operation, String swiftCode, String countryISO2, SwiftCode entity) {
+    }
+
+    public static SwiftCodeChangedEvent added(SwiftCode entity) {
+        return new SwiftCodeChangedEvent(List.of(addedChange(entity)));
+    }
+
+    public static SwiftCodeChangedEvent deleted(String swiftCode, String countryISO2) {
+        return new SwiftCodeChangedEvent(List.of(deletedChange(swiftCode, countryISO2)));
+    }
+
+    public static SwiftCodeChangedEvent fromOtherInstance(List<Change> changes) {
+        return new SwiftCodeChangedEvent(changes, true);
+    }
+
+    public static Change addedChange(SwiftCode entity) {
+        return new Change(Operation.ADDED, entity.getSwiftCode(), entity.getCountryISO2(), entity);
+    }
+
+    public static Change deletedChange(String swiftCode, String countryISO2) {
+        return new Change(Operation.DELETED, swiftCode, countryISO2, null);
+    }
+}
@@ -1,12 +1,19 @@
 package com.szymon.swiftcode.exceptions;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.szymon.swiftcode.dto.MessageResponse;
+import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,7 +24,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<MessageResponse> handleResourceNotFoundException(ResourceNotFoundException ex) {
         MessageResponse response = new MessageResponse(ex.getMessage());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        //explicit type, otherwise a request accepting only ndjson gets an empty 404
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     @ExceptionHandler(DuplicateResourceException.class)
@@ -25,10 +33,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(WritePendingException.class)
+    public ResponseEntity<MessageResponse> handleWritePending(WritePendingException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<MessageResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new MessageResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Map<String, String>>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        return validationErrors(ex.getBindingResult());
+    }
+
+    //webflux reports a failed @Valid with its own exception type
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Map<String, String>>> handleReactiveValidationExceptions(WebExchangeBindException ex) {
+        return validationErrors(ex.getBindingResult());
+    }
+
+    private static ResponseEntity<Map<String, Map<String, String>>> validationErrors(BindingResult bindingResult) {
         Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach(error -> {
+        bindingResult.getAllErrors().forEach(error -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
@@ -38,6 +66,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<MessageResponse> handleMalformedJson(JsonProcessingException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse("Malformed request body: " + ex.getOriginalMessage()));
+    }
+
+    //a query or path parameter that doesn't convert, e.g. limit=abc
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<MessageResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new MessageResponse("Invalid value '" + ex.getValue() + "' for parameter '" + ex.getName() + "'"));
+    }
+
+    //webflux reports a parameter it can't convert or a body it can't read with its own exception type
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<MessageResponse> handleReactiveInput(ServerWebInputException ex) {
+        MethodParameter parameter = ex.getMethodParameter();
+        String message = parameter != null && parameter.getParameterName() != null
+                ? "Invalid value for parameter '" + parameter.getParameterName() + "'"
+                : "Invalid request: " + ex.getReason();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new MessageResponse(message));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<MessageResponse> handleGenericException(Exception ex) {
         MessageResponse response = new MessageResponse("An unexpected error occurred: " + ex.getMessage());
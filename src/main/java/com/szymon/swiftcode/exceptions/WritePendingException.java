@@ -0,0 +1,13 @@
+package com.szymon.swiftcode.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class WritePendingException extends RuntimeException {
+
+    public WritePendingException(String resourceName, String fieldName, Object fieldValue) {
+        super(String.format("%s with %s: '%s' is still being written, retry once it is persisted", resourceName, fieldName, fieldValue));
+    }
+
+}
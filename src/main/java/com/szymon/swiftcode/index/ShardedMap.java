@@ -0,0 +1,110 @@
+package com.szymon.swiftcode.index;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+//immutable map split into a fixed number of shards by key hash. a new version copies the shard array and the one
+//shard the key falls into and shares every other shard with the previous version, so a single put or remove costs
+//about size / SHARDS + SHARDS instead of a copy of the whole map
+final class ShardedMap<K, V> {
+    private static final int SHARDS = 256;
+    private static final ShardedMap<?, ?> EMPTY = new ShardedMap<>(emptyShards(), 0);
+
+    private final Map<K, V>[] shards;
+    private final int size;
+
+    private ShardedMap(Map<K, V>[] shards, int size) {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> ShardedMap<K, V> empty() {
+        return (ShardedMap<K, V>) EMPTY;
+    }
+
+    static <K, V> ShardedMap<K, V> of(Map<K, V> source) {
+        List<Map<K, V>> grouped = new ArrayList<>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            grouped.add(new HashMap<>());
+        }
+        source.forEach((key, value) -> grouped.get(shard(key)).put(key, value));
+
+        Map<K, V>[] shards = emptyShards();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = Map.copyOf(grouped.get(i));
+        }
+        return new ShardedMap<>(shards, source.size());
+    }
+
+    V get(Object key) {
+        return shards[shard(key)].get(key);
+    }
+
+    V getOrDefault(Object key, V defaultValue) {
+        return shards[shard(key)].getOrDefault(key, defaultValue);
+    }
+
+    boolean containsKey(Object key) {
+        return shards[shard(key)].containsKey(key);
+    }
+
+    int size() {
+        return size;
+    }
+
+    ShardedMap<K, V> with(K key, V value) {
+        int shard = shard(key);
+        Map<K, V> copy = new HashMap<>(shards[shard]);
+        boolean added = copy.put(key, value) == null;
+        return replace(shard, copy, added ? size + 1 : size);
+    }
+
+    ShardedMap<K, V> without(K key) {
+        int shard = shard(key);
+        if (!shards[shard].containsKey(key)) return this;
+
+        Map<K, V> copy = new HashMap<>(shards[shard]);
+        copy.remove(key);
+        return replace(shard, copy, size - 1);
+    }
+
+    //a read-only view over all shards, nothing is copied
+    Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return Arrays.stream(shards).flatMap(shard -> shard.values().stream()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private ShardedMap<K, V> replace(int shard, Map<K, V> content, int newSize) {
+        Map<K, V>[] newShards = shards.clone();
+        newShards[shard] = Map.copyOf(content);
+        return new ShardedMap<>(newShards, newSize);
+    }
+
+    private static int shard(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (SHARDS - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<K, V>[] emptyShards() {
+        Map<K, V>[] shards = new Map[SHARDS];
+        Arrays.fill(shards, Map.of());
+        return shards;
+    }
+}
@@ -0,0 +1,15 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.model.SwiftCode;
+
+//what the in-memory read models keep of a row. entities are mutable and managed by hibernate, one of them shared
+//by the snapshot and the search index could be changed under both by whoever else holds it
+public record SwiftCodeEntry(String swiftCode, String bankName, String address, String city,
+                             String countryISO2, String country, boolean isHeadquarter) {
+
+    //the entity's values are already dictionary encoded, the entry shares them
+    public static SwiftCodeEntry of(SwiftCode swiftCode) {
+        return new SwiftCodeEntry(swiftCode.getSwiftCode(), swiftCode.getBankName(), swiftCode.getAddress(),
+                swiftCode.getCity(), swiftCode.getCountryISO2(), swiftCode.getCountry(), swiftCode.isHeadquarter());
+    }
+}
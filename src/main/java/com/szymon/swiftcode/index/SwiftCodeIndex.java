@@ -0,0 +1,95 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+//reads go through current() without locking, writers swap the whole snapshot
+@Component
+@RequiredArgsConstructor
+public class SwiftCodeIndex {
+    private final SwiftCodeRepository repository;
+
+    private final AtomicReference<SwiftCodeSnapshot> snapshot = new AtomicReference<>();
+
+    //a lock instead of synchronized, rebuild waits on jdbc and would pin the carrier of a virtual thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    //changes committed while a rebuild reads the table, applied to the rebuilt snapshot before it is published.
+    //guarded by writeLock, null when no rebuild is running
+    private List<SwiftCodeChangedEvent.Change> changedDuringRebuild;
+
+    @Value("${swift.snapshot.enabled:true}")
+    private boolean enabled;
+
+    //null until the first build, callers should fall back to the database then
+    public SwiftCodeSnapshot current() {
+        return snapshot.get();
+    }
+
+    public boolean isReady() {
+        return snapshot.get() != null;
+    }
+
+    //the table is read without the write lock, so commits meanwhile aren't held up. they are recorded instead and
+    //replayed in order, a change the read already saw is applied again to the same result
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(DatasetReloadedEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+
+        rebuildLock.lock();
+        try {
+            List<SwiftCodeChangedEvent.Change> changed = new ArrayList<>();
+            writeLock.lock();
+            try {
+                changedDuringRebuild = changed;
+            } finally {
+                writeLock.unlock();
+            }
+
+            SwiftCodeSnapshot rebuilt = null;
+            try {
+                rebuilt = SwiftCodeSnapshot.of(repository.findAll());
+            } finally {
+                writeLock.lock();
+                try {
+                    if (rebuilt != null) snapshot.set(rebuilt.apply(changed));
+                    changedDuringRebuild = null;
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        writeLock.lock();
+        try {
+            if (changedDuringRebuild != null) changedDuringRebuild.addAll(event.changes());
+
+            SwiftCodeSnapshot current = snapshot.get();
+            if (current == null) return;
+
+            snapshot.set(current.apply(event.changes()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+//answers "definitely not stored" without touching the database. deletes leave their bits set,
+//so the filter is rebuilt from the table periodically to drop them
+@Slf4j
+@Component
+public class SwiftCodeMembershipFilter {
+    private final SwiftCodeRepository repository;
+
+    private final AtomicReference<SwiftCodeBloomFilter> filter = new AtomicReference<>();
+    //codes added while a rebuild is reading the table, replayed into the new filter
+    private final AtomicReference<Set<String>> addedDuringRebuild = new AtomicReference<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final Counter absent;
+    private final Counter maybePresent;
+
+    @Value("${swift.membership-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${swift.membership-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public SwiftCodeMembershipFilter(SwiftCodeRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.absent = meterRegistry.counter("swift.membership.filter.checks", "result", "absent");
+        this.maybePresent = meterRegistry.counter("swift.membership.filter.checks", "result", "maybe");
+        Gauge.builder("swift.membership.filter.bits", filter, ref -> ref.get() == null ? 0 : ref.get().bitCount())
+                .register(meterRegistry);
+    }
+
+    //true until the first build, a missing filter must never turn into a 404
+    public boolean mightContain(String swiftCode) {
+        SwiftCodeBloomFilter current = filter.get();
+        if (current == null || swiftCode == null) return true;
+
+        boolean result = current.mightContain(swiftCode);
+        (result ? maybePresent : absent).increment();
+        return result;
+    }
+
+    //called before the insert, a rolled back insert only costs a false positive
+    public void add(String swiftCode) {
+        Set<String> pending = addedDuringRebuild.get();
+        if (pending != null) pending.add(swiftCode);
+
+        //a rebuild can publish its filter and stop replaying between the read and the put, the code would only
+        //reach the discarded filter. put again until the filter written to is still the current one
+        SwiftCodeBloomFilter current = filter.get();
+        while (current != null) {
+            current.put(swiftCode);
+            SwiftCodeBloomFilter latest = filter.get();
+            if (latest == current) return;
+            current = latest;
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(DatasetReloadedEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+
+        rebuildLock.lock();
+        Set<String> pending = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild.set(pending);
+        try {
+            List<String> swiftCodes = repository.findAllSwiftCodes();
+            //headroom for codes added until the next rebuild
+            SwiftCodeBloomFilter rebuilt = SwiftCodeBloomFilter.create(swiftCodes.size() * 5L / 4, falsePositiveRate);
+            swiftCodes.forEach(rebuilt::put);
+            pending.forEach(rebuilt::put);
+
+            filter.set(rebuilt);
+            //adds that raced with the swap may have gone to the old filter only
+            pending.forEach(rebuilt::put);
+            log.info("Membership filter rebuilt: {} codes, {} bits, {} hashes",
+                    swiftCodes.size(), rebuilt.bitCount(), rebuilt.hashCount());
+        } finally {
+            addedDuringRebuild.set(null);
+            rebuildLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${swift.membership-filter.rebuild-interval-ms:600000}",
+            initialDelayString = "${swift.membership-filter.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        if (filter.get() != null) rebuild();
+    }
+
+    //covers adds that did not go through add(), e.g. a concurrent rebuild that read the table before the commit
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        event.changes().stream()
+                .filter(change -> change.operation() == SwiftCodeChangedEvent.Operation.ADDED)
+                .forEach(change -> add(change.swiftCode()));
+    }
+}
@@ -0,0 +1,269 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+//trigram inverted index over bank name, city and address. immutable like the snapshot, changes produce a new index.
+//every word is indexed as ^word$, so a prefix or a word with a typo still shares most of its trigrams with the stored one
+public final class SwiftCodeNgramIndex {
+    private static final int GRAM_LENGTH = 3;
+    //a query word matches a field when at least this share of its trigrams is found there
+    private static final double MIN_WORD_MATCH = 0.5;
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^A-Z0-9]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    public enum Field {
+        BANK_NAME(3, SwiftCodeEntry::bankName),
+        CITY(2, SwiftCodeEntry::city),
+        ADDRESS(1, SwiftCodeEntry::address);
+
+        private final int weight;
+        private final Function<SwiftCodeEntry, String> value;
+
+        Field(int weight, Function<SwiftCodeEntry, String> value) {
+            this.weight = weight;
+            this.value = value;
+        }
+    }
+
+    private static final int MAX_WEIGHT = Field.BANK_NAME.weight;
+
+    //score is 0..1, the share of query words found weighted by the field they were found in
+    public record Hit(SwiftCodeEntry swiftCode, int matchedWords, double score) {
+    }
+
+    //best first. written out by hand, it runs once per matching document and most of them tie on the first keys
+    private static final Comparator<Hit> RANKING = (a, b) -> compare(a.matchedWords(), a.score(), a.swiftCode(), b);
+
+    //slot -> entry, a deleted slot stays null until the next rebuild
+    private final SwiftCodeEntry[] documents;
+    private final Map<String, Integer> slots;
+    //per field, trigram -> slots of the documents containing it
+    private final List<Map<String, int[]>> postings;
+
+    private SwiftCodeNgramIndex(SwiftCodeEntry[] documents, Map<String, Integer> slots, List<Map<String, int[]>> postings) {
+        this.documents = documents;
+        this.slots = slots;
+        this.postings = postings;
+    }
+
+    public static SwiftCodeNgramIndex of(Collection<SwiftCodeEntry> entries) {
+        List<SwiftCodeEntry> documents = new ArrayList<>();
+        Map<String, Integer> slots = new HashMap<>();
+        for (SwiftCodeEntry entry : entries) {
+            if (entry.swiftCode() == null) continue;
+
+            Integer existing = slots.get(entry.swiftCode());
+            if (existing != null) {
+                documents.set(existing, entry);
+            } else {
+                slots.put(entry.swiftCode(), documents.size());
+                documents.add(entry);
+            }
+        }
+
+        List<Map<String, int[]>> postings = new ArrayList<>();
+        for (Field field : Field.values()) {
+            Map<String, List<Integer>> building = new HashMap<>();
+            for (int slot = 0; slot < documents.size(); slot++) {
+                for (String gram : grams(field.value.apply(documents.get(slot)))) {
+                    building.computeIfAbsent(gram, k -> new ArrayList<>()).add(slot);
+                }
+            }
+            Map<String, int[]> frozen = new HashMap<>();
+            building.forEach((gram, list) -> frozen.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+            postings.add(Map.copyOf(frozen));
+        }
+        return new SwiftCodeNgramIndex(documents.toArray(SwiftCodeEntry[]::new), Map.copyOf(slots), List.copyOf(postings));
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public int gramCount() {
+        return postings.stream().mapToInt(Map::size).sum();
+    }
+
+    //words matching more of the query rank first, then by score, headquarters before branches on a tie
+    public List<Hit> search(String query, String countryISO2, int limit) {
+        List<Set<String>> words = words(query).stream().distinct().map(SwiftCodeNgramIndex::wordGrams).toList();
+        if (words.isEmpty() || limit <= 0) return List.of();
+
+        int[] matchedWords = new int[documents.length];
+        double[] scores = new double[documents.length];
+        int[] hits = new int[documents.length];
+        double[] best = new double[documents.length];
+        int[] touched = new int[documents.length];
+        int[] fieldTouched = new int[documents.length];
+
+        for (Set<String> grams : words) {
+            int touchedCount = 0;
+            for (Field field : Field.values()) {
+                Map<String, int[]> fieldPostings = postings.get(field.ordinal());
+                int fieldTouchedCount = 0;
+                for (String gram : grams) {
+                    int[] posting = fieldPostings.get(gram);
+                    if (posting == null) continue;
+                    for (int slot : posting) {
+                        if (hits[slot]++ == 0) fieldTouched[fieldTouchedCount++] = slot;
+                    }
+                }
+                for (int i = 0; i < fieldTouchedCount; i++) {
+                    int slot = fieldTouched[i];
+                    double share = (double) hits[slot] / grams.size();
+                    hits[slot] = 0;
+                    if (share < MIN_WORD_MATCH) continue;
+
+                    if (best[slot] == 0) touched[touchedCount++] = slot;
+                    best[slot] = Math.max(best[slot], share * field.weight);
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                matchedWords[slot]++;
+                scores[slot] += best[slot];
+                best[slot] = 0;
+            }
+        }
+
+        //keeps only the best `limit` hits, the worst of them on top
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int slot = 0; slot < documents.length; slot++) {
+            SwiftCodeEntry document = documents[slot];
+            if (matchedWords[slot] == 0 || document == null) continue;
+            if (countryISO2 != null && !countryISO2.equalsIgnoreCase(document.countryISO2())) continue;
+
+            double score = scores[slot] / (words.size() * MAX_WEIGHT);
+            if (top.size() == limit && compare(matchedWords[slot], score, document, top.peek()) >= 0) continue;
+
+            top.add(new Hit(document, matchedWords[slot], score));
+            if (top.size() > limit) top.poll();
+        }
+        List<Hit> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    //a single change only touches the postings of its own trigrams, bigger ones rebuild once instead of copying per change
+    public SwiftCodeNgramIndex apply(List<SwiftCodeChangedEvent.Change> changes) {
+        if (changes.size() == 1) {
+            SwiftCodeChangedEvent.Change change = changes.getFirst();
+            return switch (change.operation()) {
+                case ADDED -> with(SwiftCodeEntry.of(change.entity()));
+                case DELETED -> without(change.swiftCode());
+            };
+        }
+
+        Map<String, SwiftCodeEntry> updated = new HashMap<>();
+        Arrays.stream(documents).filter(Objects::nonNull).forEach(document -> updated.put(document.swiftCode(), document));
+        for (SwiftCodeChangedEvent.Change change : changes) {
+            switch (change.operation()) {
+                case ADDED -> updated.put(change.swiftCode(), SwiftCodeEntry.of(change.entity()));
+                case DELETED -> updated.remove(change.swiftCode());
+            }
+        }
+        return of(updated.values());
+    }
+
+    public SwiftCodeNgramIndex with(SwiftCodeEntry entry) {
+        SwiftCodeNgramIndex base = slots.containsKey(entry.swiftCode()) ? without(entry.swiftCode()) : this;
+
+        int slot = base.documents.length;
+        SwiftCodeEntry[] newDocuments = Arrays.copyOf(base.documents, slot + 1);
+        newDocuments[slot] = entry;
+
+        Map<String, Integer> newSlots = new HashMap<>(base.slots);
+        newSlots.put(entry.swiftCode(), slot);
+
+        List<Map<String, int[]>> newPostings = new ArrayList<>();
+        for (Field field : Field.values()) {
+            Map<String, int[]> copy = new HashMap<>(base.postings.get(field.ordinal()));
+            for (String gram : grams(field.value.apply(entry))) {
+                int[] current = copy.getOrDefault(gram, new int[0]);
+                int[] appended = Arrays.copyOf(current, current.length + 1);
+                appended[current.length] = slot;
+                copy.put(gram, appended);
+            }
+            newPostings.add(Map.copyOf(copy));
+        }
+        return new SwiftCodeNgramIndex(newDocuments, Map.copyOf(newSlots), List.copyOf(newPostings));
+    }
+
+    public SwiftCodeNgramIndex without(String swiftCode) {
+        Integer slot = slots.get(swiftCode);
+        if (slot == null) return this;
+
+        SwiftCodeEntry removed = documents[slot];
+        SwiftCodeEntry[] newDocuments = documents.clone();
+        newDocuments[slot] = null;
+
+        Map<String, Integer> newSlots = new HashMap<>(slots);
+        newSlots.remove(swiftCode);
+
+        List<Map<String, int[]>> newPostings = new ArrayList<>();
+        for (Field field : Field.values()) {
+            Map<String, int[]> copy = new HashMap<>(postings.get(field.ordinal()));
+            for (String gram : grams(field.value.apply(removed))) {
+                int[] remaining = Arrays.stream(copy.getOrDefault(gram, new int[0])).filter(s -> s != slot).toArray();
+                if (remaining.length == 0) {
+                    copy.remove(gram);
+                } else {
+                    copy.put(gram, remaining);
+                }
+            }
+            newPostings.add(Map.copyOf(copy));
+        }
+        return new SwiftCodeNgramIndex(newDocuments, Map.copyOf(newSlots), List.copyOf(newPostings));
+    }
+
+    private static int compare(int matchedWords, double score, SwiftCodeEntry entry, Hit other) {
+        if (matchedWords != other.matchedWords()) return matchedWords > other.matchedWords() ? -1 : 1;
+        if (score != other.score()) return score > other.score() ? -1 : 1;
+        if (entry.isHeadquarter() != other.swiftCode().isHeadquarter()) return entry.isHeadquarter() ? -1 : 1;
+        return entry.swiftCode().compareTo(other.swiftCode().swiftCode());
+    }
+
+    //distinct trigrams of all words of a field value
+    static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words(value)) {
+            grams.addAll(wordGrams(word));
+        }
+        return grams;
+    }
+
+    //upper case without diacritics, so "Łódź" and "LODZ" are the same word
+    static List<String> words(String value) {
+        if (value == null || value.isBlank()) return List.of();
+
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+                .toUpperCase(Locale.ROOT)
+                .replace('Ł', 'L');
+        return Arrays.stream(NON_ALPHANUMERIC.split(normalized)).filter(word -> !word.isEmpty()).toList();
+    }
+
+    private static Set<String> wordGrams(String word) {
+        String padded = "^" + word + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,75 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+//same lifecycle as SwiftCodeIndex: built at load, swapped on every committed change
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SwiftCodeSearchIndex {
+    private final SwiftCodeRepository repository;
+    private final SwiftCodeIndex snapshotIndex;
+
+    private final AtomicReference<SwiftCodeNgramIndex> index = new AtomicReference<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Value("${swift.search.enabled:true}")
+    private boolean enabled;
+
+    //null until the first build
+    public SwiftCodeNgramIndex current() {
+        return index.get();
+    }
+
+    //after SwiftCodeIndex, so the rows it just loaded can be reused
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(DatasetReloadedEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            SwiftCodeNgramIndex rebuilt = SwiftCodeNgramIndex.of(rows());
+            index.set(rebuilt);
+            log.info("Search index built: {} codes, {} trigrams in {} ms",
+                    rebuilt.size(), rebuilt.gramCount(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //the snapshot's entries when there is one, a second copy of every row would double the memory it takes
+    private Collection<SwiftCodeEntry> rows() {
+        SwiftCodeSnapshot snapshot = snapshotIndex.current();
+        return snapshot != null ? snapshot.all() : repository.findAll().stream().map(SwiftCodeEntry::of).toList();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        writeLock.lock();
+        try {
+            SwiftCodeNgramIndex current = index.get();
+            if (current == null) return;
+
+            index.set(current.apply(event.changes()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//immutable view of the whole dataset, never modified after creation - changes produce a new snapshot.
+//rows are kept as immutable entries, never as the entities they were read from. codes and bank prefixes live in
+//sharded maps, so a new version shares all but one shard with the previous one; country lists are copied whole
+public final class SwiftCodeSnapshot {
+    private static final int BANK_PREFIX_LENGTH = 8;
+    //up to this many changes are applied one by one, a bigger batch regroups the dataset once
+    private static final int INCREMENTAL_CHANGE_LIMIT = 256;
+    private static final Comparator<SwiftCodeEntry> BY_SWIFT_CODE = Comparator.comparing(SwiftCodeEntry::swiftCode);
+
+    private final ShardedMap<String, SwiftCodeEntry> byCode;
+    private final ShardedMap<String, List<SwiftCodeEntry>> branchesByPrefix;
+    //a couple hundred countries, copying the map itself is cheap
+    private final Map<String, List<SwiftCodeEntry>> byCountry;
+
+    private SwiftCodeSnapshot(ShardedMap<String, SwiftCodeEntry> byCode,
+                              ShardedMap<String, List<SwiftCodeEntry>> branchesByPrefix,
+                              Map<String, List<SwiftCodeEntry>> byCountry) {
+        this.byCode = byCode;
+        this.branchesByPrefix = branchesByPrefix;
+        this.byCountry = byCountry;
+    }
+
+    public static SwiftCodeSnapshot of(Collection<SwiftCode> swiftCodes) {
+        return ofEntries(swiftCodes.stream()
+                .filter(swiftCode -> swiftCode.getSwiftCode() != null)
+                .map(SwiftCodeEntry::of)
+                .toList());
+    }
+
+    private static SwiftCodeSnapshot ofEntries(Collection<SwiftCodeEntry> entries) {
+        Map<String, SwiftCodeEntry> byCode = new HashMap<>();
+        Map<String, List<SwiftCodeEntry>> branchesByPrefix = new HashMap<>();
+        Map<String, List<SwiftCodeEntry>> byCountry = new HashMap<>();
+
+        for (SwiftCodeEntry entry : entries) {
+            byCode.put(entry.swiftCode(), entry);
+            if (!entry.isHeadquarter() && entry.swiftCode().length() >= BANK_PREFIX_LENGTH) {
+                branchesByPrefix.computeIfAbsent(bankPrefix(entry.swiftCode()), k -> new ArrayList<>()).add(entry);
+            }
+            if (entry.countryISO2() != null) {
+                byCountry.computeIfAbsent(entry.countryISO2().toUpperCase(), k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        return new SwiftCodeSnapshot(ShardedMap.of(byCode), ShardedMap.of(freeze(branchesByPrefix)), Map.copyOf(freeze(byCountry)));
+    }
+
+    public static SwiftCodeSnapshot empty() {
+        return new SwiftCodeSnapshot(ShardedMap.empty(), ShardedMap.empty(), Map.of());
+    }
+
+    public SwiftCodeEntry findBySwiftCode(String swiftCode) {
+        return swiftCode == null ? null : byCode.get(swiftCode);
+    }
+
+    public List<SwiftCodeEntry> findBranches(String bankPrefix) {
+        return branchesByPrefix.getOrDefault(bankPrefix, List.of());
+    }
+
+    public List<SwiftCodeEntry> findByCountry(String countryISO2) {
+        return countryISO2 == null ? List.of() : byCountry.getOrDefault(countryISO2.toUpperCase(), List.of());
+    }
+
+    //country lists are sorted by swift code, so a page is a binary search plus a sublist
+    public List<SwiftCodeEntry> findByCountryAfter(String countryISO2, String afterSwiftCode, int limit) {
+        List<SwiftCodeEntry> entries = findByCountry(countryISO2);
+        int from = afterSwiftCode == null ? 0 : firstAfter(entries, afterSwiftCode);
+        return entries.subList(from, Math.min(from + limit, entries.size()));
+    }
+
+    public Collection<SwiftCodeEntry> all() {
+        return byCode.values();
+    }
+
+    public int size() {
+        return byCode.size();
+    }
+
+    public SwiftCodeSnapshot apply(List<SwiftCodeChangedEvent.Change> changes) {
+        if (changes.size() <= INCREMENTAL_CHANGE_LIMIT) {
+            SwiftCodeSnapshot updated = this;
+            for (SwiftCodeChangedEvent.Change change : changes) {
+                updated = switch (change.operation()) {
+                    case ADDED -> updated.with(change.entity());
+                    case DELETED -> updated.without(change.swiftCode());
+                };
+            }
+            return updated;
+        }
+
+        Map<String, SwiftCodeEntry> updated = new HashMap<>();
+        all().forEach(entry -> updated.put(entry.swiftCode(), entry));
+        for (SwiftCodeChangedEvent.Change change : changes) {
+            switch (change.operation()) {
+                case ADDED -> updated.put(change.swiftCode(), SwiftCodeEntry.of(change.entity()));
+                case DELETED -> updated.remove(change.swiftCode());
+            }
+        }
+        return ofEntries(updated.values());
+    }
+
+    public SwiftCodeSnapshot with(SwiftCode swiftCode) {
+        return with(SwiftCodeEntry.of(swiftCode));
+    }
+
+    private SwiftCodeSnapshot with(SwiftCodeEntry entry) {
+        SwiftCodeSnapshot base = byCode.containsKey(entry.swiftCode()) ? without(entry.swiftCode()) : this;
+
+        ShardedMap<String, List<SwiftCodeEntry>> newBranches = base.branchesByPrefix;
+        if (!entry.isHeadquarter() && entry.swiftCode().length() >= BANK_PREFIX_LENGTH) {
+            String prefix = bankPrefix(entry.swiftCode());
+            newBranches = newBranches.with(prefix, withInserted(base.branchesByPrefix.getOrDefault(prefix, List.of()), entry));
+        }
+
+        Map<String, List<SwiftCodeEntry>> newByCountry = base.byCountry;
+        if (entry.countryISO2() != null) {
+            String country = entry.countryISO2().toUpperCase();
+            Map<String, List<SwiftCodeEntry>> copy = new HashMap<>(base.byCountry);
+            copy.put(country, withInserted(base.byCountry.getOrDefault(country, List.of()), entry));
+            newByCountry = Map.copyOf(copy);
+        }
+
+        return new SwiftCodeSnapshot(base.byCode.with(entry.swiftCode(), entry), newBranches, newByCountry);
+    }
+
+    public SwiftCodeSnapshot without(String swiftCode) {
+        SwiftCodeEntry removed = byCode.get(swiftCode);
+        if (removed == null) return this;
+
+        ShardedMap<String, List<SwiftCodeEntry>> newBranches = branchesByPrefix;
+        if (!removed.isHeadquarter() && swiftCode.length() >= BANK_PREFIX_LENGTH) {
+            String prefix = bankPrefix(swiftCode);
+            List<SwiftCodeEntry> remaining = withRemoved(branchesByPrefix.getOrDefault(prefix, List.of()), removed);
+            newBranches = remaining.isEmpty() ? newBranches.without(prefix) : newBranches.with(prefix, remaining);
+        }
+
+        Map<String, List<SwiftCodeEntry>> newByCountry = byCountry;
+        if (removed.countryISO2() != null) {
+            String country = removed.countryISO2().toUpperCase();
+            List<SwiftCodeEntry> remaining = withRemoved(byCountry.getOrDefault(country, List.of()), removed);
+            Map<String, List<SwiftCodeEntry>> copy = new HashMap<>(byCountry);
+            if (remaining.isEmpty()) {
+                copy.remove(country);
+            } else {
+                copy.put(country, remaining);
+            }
+            newByCountry = Map.copyOf(copy);
+        }
+
+        return new SwiftCodeSnapshot(byCode.without(swiftCode), newBranches, newByCountry);
+    }
+
+    public static String bankPrefix(String swiftCode) {
+        return swiftCode.substring(0, BANK_PREFIX_LENGTH);
+    }
+
+    private static List<SwiftCodeEntry> withInserted(List<SwiftCodeEntry> sorted, SwiftCodeEntry entry) {
+        List<SwiftCodeEntry> values = new ArrayList<>(sorted.size() + 1);
+        values.addAll(sorted);
+        values.add(firstAfter(sorted, entry.swiftCode()), entry);
+        return List.copyOf(values);
+    }
+
+    private static List<SwiftCodeEntry> withRemoved(List<SwiftCodeEntry> sorted, SwiftCodeEntry entry) {
+        List<SwiftCodeEntry> values = new ArrayList<>(sorted);
+        values.remove(entry);
+        return List.copyOf(values);
+    }
+
+    private static Map<String, List<SwiftCodeEntry>> freeze(Map<String, List<SwiftCodeEntry>> source) {
+        Map<String, List<SwiftCodeEntry>> frozen = new HashMap<>();
+        source.forEach((key, values) -> {
+            values.sort(BY_SWIFT_CODE);
+            frozen.put(key, List.copyOf(values));
+        });
+        return frozen;
+    }
+
+    private static int firstAfter(List<SwiftCodeEntry> sorted, String swiftCode) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).swiftCode().compareTo(swiftCode) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,202 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//per country counts of headquarters, branches and banks, built at load and kept up to date by the change events.
+//changes only take the read lock and update lock-free counters, so concurrent writes don't wait on each other;
+//a rebuild takes the write lock, changes committed meanwhile are applied to the rebuilt counters afterwards
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SwiftCodeStatistics {
+    private final SwiftCodeRepository repository;
+    private final SwiftCodeIndex snapshotIndex;
+
+    private final AtomicReference<Counters> counters = new AtomicReference<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${swift.stats.enabled:true}")
+    private boolean enabled;
+
+    //null until the first build
+    public Counters current() {
+        return counters.get();
+    }
+
+    //after SwiftCodeIndex, so the rows it just loaded can be reused
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(DatasetReloadedEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+
+        lock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            Counters rebuilt = new Counters();
+            rows().forEach(rebuilt::add);
+            counters.set(rebuilt);
+            log.info("Statistics built: {} codes in {} countries in {} ms",
+                    rebuilt.members.size(), rebuilt.countries.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //the snapshot's entries when there is one, a second copy of every row would double the memory it takes
+    private Collection<SwiftCodeEntry> rows() {
+        SwiftCodeSnapshot snapshot = snapshotIndex.current();
+        return snapshot != null ? snapshot.all() : repository.findAll().stream().map(SwiftCodeEntry::of).toList();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            Counters current = counters.get();
+            if (current == null) return;
+
+            for (SwiftCodeChangedEvent.Change change : event.changes()) {
+                switch (change.operation()) {
+                    case ADDED -> current.add(SwiftCodeEntry.of(change.entity()));
+                    case DELETED -> current.remove(change.swiftCode());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static final class Counters {
+        //what each counted code contributed, so a delete knows what to take back and a replayed change counts once
+        private final Map<String, Member> members = new ConcurrentHashMap<>();
+        //a member is only a country and a flag, every code of the same kind points to one instance
+        private final Map<Member, Member> sharedMembers = new ConcurrentHashMap<>();
+        private final Map<String, Country> countries = new ConcurrentHashMap<>();
+        private final LongAdder headquarters = new LongAdder();
+        private final LongAdder branches = new LongAdder();
+        //bank code -> number of codes, a bank is counted while it has at least one
+        private final Map<String, Integer> banks = new ConcurrentHashMap<>();
+
+        public long headquarters() {
+            return headquarters.sum();
+        }
+
+        public long branches() {
+            return branches.sum();
+        }
+
+        public int banks() {
+            return banks.size();
+        }
+
+        //null for a country without codes
+        public Country country(String countryISO2) {
+            Country country = countries.get(countryISO2.toUpperCase(Locale.ROOT));
+            return country == null || country.isEmpty() ? null : country;
+        }
+
+        public Map<String, Country> countries() {
+            return countries;
+        }
+
+        //compute runs under the lock of the code's bin, so an add and a delete of the same code can't interleave
+        void add(SwiftCodeEntry entry) {
+            if (entry.swiftCode() == null || entry.countryISO2() == null) return;
+
+            Member member = sharedMembers.computeIfAbsent(
+                    new Member(entry.countryISO2().toUpperCase(Locale.ROOT), entry.isHeadquarter()), m -> m);
+            String bankCode = bankCode(entry.swiftCode());
+            members.compute(entry.swiftCode(), (code, previous) -> {
+                if (member.equals(previous)) return previous;
+
+                if (previous != null) take(previous, bankCode);
+                countries.computeIfAbsent(member.countryISO2(), k -> new Country(entry.country())).add(member, bankCode);
+                (member.headquarter() ? headquarters : branches).increment();
+                banks.merge(bankCode, 1, Integer::sum);
+                return member;
+            });
+        }
+
+        void remove(String swiftCode) {
+            members.computeIfPresent(swiftCode, (code, member) -> {
+                take(member, bankCode(code));
+                return null;
+            });
+        }
+
+        private void take(Member member, String bankCode) {
+            countries.get(member.countryISO2()).remove(member, bankCode);
+            (member.headquarter() ? headquarters : branches).decrement();
+            banks.computeIfPresent(bankCode, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    public static final class Country {
+        private final String countryName;
+        private final LongAdder headquarters = new LongAdder();
+        private final LongAdder branches = new LongAdder();
+        private final Map<String, Integer> banks = new ConcurrentHashMap<>();
+
+        private Country(String countryName) {
+            this.countryName = countryName;
+        }
+
+        public String countryName() {
+            return countryName;
+        }
+
+        public long headquarters() {
+            return headquarters.sum();
+        }
+
+        public long branches() {
+            return branches.sum();
+        }
+
+        public int banks() {
+            return banks.size();
+        }
+
+        boolean isEmpty() {
+            return banks.isEmpty();
+        }
+
+        private void add(Member member, String bankCode) {
+            (member.headquarter() ? headquarters : branches).increment();
+            banks.merge(bankCode, 1, Integer::sum);
+        }
+
+        private void remove(Member member, String bankCode) {
+            (member.headquarter() ? headquarters : branches).decrement();
+            banks.computeIfPresent(bankCode, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    //the bank code is taken from the swift code again when needed, keeping a copy per code isn't worth the memory
+    private record Member(String countryISO2, boolean headquarter) {
+    }
+
+    //the first four characters of a SWIFT code identify the bank
+    private static String bankCode(String swiftCode) {
+        return swiftCode.substring(0, Math.min(4, swiftCode.length())).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,27 @@
+package com.szymon.swiftcode.loader;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+//"dataLoad" in the readiness group: the instance takes traffic only once the table and read models are filled.
+//liveness doesn't include it, a long load never gets the pod restarted
+@Component
+@RequiredArgsConstructor
+public class DataLoadHealthIndicator implements HealthIndicator {
+    private final DataLoadStatus status;
+    private final ImportPipeline importPipeline;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = status.isReady() ? Health.up() : Health.outOfService();
+        builder.withDetail("phase", status.getPhase())
+                .withDetail("rowsWritten", importPipeline.getWrittenRows())
+                .withDetail("elapsedMs", status.getElapsed().toMillis());
+        if (status.getError() != null) {
+            builder.withDetail("error", status.getError());
+        }
+        return builder.build();
+    }
+}
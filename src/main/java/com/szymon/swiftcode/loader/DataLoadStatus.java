@@ -0,0 +1,50 @@
+package com.szymon.swiftcode.loader;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+//where the startup load is, read by the readiness check while the load runs in the background
+@Component
+public class DataLoadStatus {
+    public enum Phase {PENDING, LOADING, READY, FAILED}
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    void loading() {
+        startedAt = Instant.now();
+        phase = Phase.LOADING;
+    }
+
+    void ready() {
+        finishedAt = Instant.now();
+        phase = Phase.READY;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        phase = Phase.FAILED;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Duration getElapsed() {
+        if (startedAt == null) return Duration.ZERO;
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+    }
+}
@@ -1,42 +1,182 @@
 package com.szymon.swiftcode.loader;
 
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
 import com.szymon.swiftcode.repository.SwiftCodeRepository;
-import com.szymon.swiftcode.utils.SwiftCodeParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.FileInputStream;
+import java.io.File;
+import java.util.List;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DataLoader implements CommandLineRunner {
     private final SwiftCodeRepository swiftCodeRepository;
-    private final SwiftCodeParser swiftCodeParser;
+    private final ImportPipeline importPipeline;
+    private final DeltaReloader deltaReloader;
+    private final SwiftCodeBulkWriter bulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final DataLoadStatus status;
 
     @Value("${swift.data-file-path}")
     private String filePath;
 
+    @Value("${swift.import.delta-reload:false}")
+    private boolean deltaReload;
+
+    //up to this many changed codes a delta is applied to the read models and sent to the other instances code by
+    //code, a bigger one is cheaper to rebuild from the table once
+    @Value("${swift.import.delta-event-limit:1000}")
+    private int deltaEventLimit;
+
+    //off lets the application context start only after the data is in, tests and benchmarks rely on that
+    @Value("${swift.import.async:true}")
+    private boolean async;
+
+    //the file stays the source of truth while running, codes added through the api but missing from it are removed
+    @Value("${swift.import.watch.enabled:false}")
+    private boolean watchFile;
+
+    private volatile FileStamp loadedFile;
+
     @Override
-    public void run(String... args) throws Exception {
+    public void run(String... args) {
+        if(async){
+            Thread.ofPlatform().daemon().name("swift-data-loader").start(this::load);
+        }else{
+            load();
+        }
+    }
+
+    void load() {
+        status.loading();
+        loadedFile = FileStamp.of(new File(filePath));
+        boolean tableChanged = false;
+        boolean hadData = false;
+        String error = null;
+        try{
+            hadData = swiftCodeRepository.count() > 0;
+            if(hadData){
+                int backfilled = bulkWriter.backfillBankPrefixes();
+                if(backfilled > 0){
+                    log.info("Filled bank_prefix of {} existing rows", backfilled);
+                }
+                if(deltaReload){
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    DeltaReloadResult result = deltaReloader.reload(new File(filePath));
+                    sample.stop(importTimer("delta"));
+                    log.info("Delta reload finished: {}", result);
+                    //the local read models are built from the table below either way, the changes are for the other instances
+                    tableChanged = result.hasChanges() && !publishChanges(result);
+                }else{
+                    log.info("Data already loaded");
+                }
+            }else{
+                swiftCodeRepository.deleteAll();
+                Timer.Sample sample = Timer.start(meterRegistry);
+                importFile(new File(filePath));
+                sample.stop(importTimer("full"));
+                tableChanged = true;
+
+                log.info("Data loaded successfully");
+            }
+        }catch (Exception e){
+            log.error("Error loading data: {}", e.getMessage(), e);
+            error = e.getMessage();
+            //the import commits batch by batch, a first import that failed partway leaves part of the file behind
+            if(!hadData){
+                tableChanged = removePartialImport();
+            }
+        }
+
+        try{
+            //build in-memory read models from whatever ended up in the table
+            eventPublisher.publishEvent(DatasetReloadedEvent.local(tableChanged));
+
+            //a failed delta reload still leaves the previous data to serve, a failed first import leaves nothing
+            if(error == null || hadData){
+                status.ready();
+                log.info("Ready to serve after {} ms", status.getElapsed().toMillis());
+            }else{
+                status.failed(error);
+            }
+        }catch (Exception e){
+            log.error("Error building read models: {}", e.getMessage(), e);
+            status.failed(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${swift.import.watch.interval-ms:60000}",
+            initialDelayString = "${swift.import.watch.interval-ms:60000}")
+    public void reloadIfFileChanged() {
+        if(!watchFile || !status.isReady()){
+            return;
+        }
+        File file = new File(filePath);
+        FileStamp current = FileStamp.of(file);
+        if(current.equals(loadedFile)){
+            return;
+        }
         try{
-            if(swiftCodeRepository.count() > 0){
-                System.out.println("Data already loaded");
-                return;
+            Timer.Sample sample = Timer.start(meterRegistry);
+            DeltaReloadResult result = deltaReloader.reload(file);
+            sample.stop(importTimer("delta"));
+            log.info("Directory file changed, delta reload finished: {}", result);
+            loadedFile = current;
+            if(result.hasChanges() && !publishChanges(result)){
+                eventPublisher.publishEvent(DatasetReloadedEvent.local(true));
             }
+        }catch (Exception e){
+            //the stamp is left as it was so the next check tries again
+            log.warn("Reloading changed directory file failed: {}", e.getMessage(), e);
+        }
+    }
 
+    private boolean removePartialImport() {
+        try{
             swiftCodeRepository.deleteAll();
-            FileInputStream file = new FileInputStream(filePath);
+            return true;
+        }catch (Exception e){
+            log.error("Error removing partially imported data: {}", e.getMessage(), e);
+            return false;
+        }
+    }
 
-            swiftCodeParser.parseSaveExcel(file);
-            file.close();
+    //false when the delta is over the limit and nothing was published, the caller asks for a full rebuild then
+    private boolean publishChanges(DeltaReloadResult result) {
+        if(result.changes().size() > deltaEventLimit){
+            return false;
+        }
+        eventPublisher.publishEvent(new SwiftCodeChangedEvent(result.changes()));
+        return true;
+    }
 
-            System.out.println("Data loaded successfully");
+    private void importFile(File file) throws Exception {
+        List<ImportStageStats> stats = importPipeline.run(file);
+        stats.forEach(stage -> log.info("Import {}", stage));
+    }
 
+    private Timer importTimer(String mode) {
+        return Timer.builder("swift.import.duration")
+                .description("Time to load the directory file")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
 
-        }catch (Exception e){
-            System.out.println("Error loading data: " + e.getMessage());
+    private record FileStamp(long lastModified, long length) {
+        static FileStamp of(File file) {
+            return new FileStamp(file.lastModified(), file.length());
         }
     }
 }
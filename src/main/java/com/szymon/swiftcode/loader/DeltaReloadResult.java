@@ -0,0 +1,21 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+
+import java.util.List;
+
+//changes carries every written row as a change event entry, inserted and updated rows as added with the new values,
+//deleted ones with the country they had, so listeners can patch their read models instead of rebuilding them
+public record DeltaReloadResult(int inserted, int updated, int deleted, int unchanged,
+                                List<SwiftCodeChangedEvent.Change> changes) {
+
+    public boolean hasChanges() {
+        return inserted + updated + deleted > 0;
+    }
+
+    //logged after every reload, the changes themselves would flood the log
+    @Override
+    public String toString() {
+        return "DeltaReloadResult[inserted=%d, updated=%d, deleted=%d, unchanged=%d]".formatted(inserted, updated, deleted, unchanged);
+    }
+}
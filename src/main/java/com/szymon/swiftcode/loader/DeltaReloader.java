@@ -0,0 +1,97 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.utils.SwiftCodeDictionary;
+import com.szymon.swiftcode.utils.SwiftCodeFingerprint;
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+//diffs a new directory file against the table by row fingerprint and writes only what changed.
+//the table is compared as a whole, so a stored code missing from the file is deleted even when it was added
+//through the api (single, bulk or buffered) and never came from a file
+@Component
+@RequiredArgsConstructor
+public class DeltaReloader {
+    private static final String STORED_ROWS_SQL =
+            "SELECT swift_code, iso2, is_headquarter, bank_name, address, city, country, time_zone FROM swift_code";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DirectoryFileReader fileReader;
+    private final SwiftCodeParser parser;
+    private final SwiftCodeBulkWriter bulkWriter;
+
+    public DeltaReloadResult reload(File file) throws Exception {
+        Map<String, StoredRow> stored = loadStoredRows();
+
+        List<SwiftCode> inserts = new ArrayList<>();
+        List<SwiftCode> updates = new ArrayList<>();
+        List<SwiftCodeChangedEvent.Change> changes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int[] unchanged = {0};
+
+        fileReader.streamRows(file, cells -> {
+            SwiftCode swiftCode = parser.toSwiftCode(cells);
+            if (swiftCode == null || !seen.add(swiftCode.getSwiftCode())) return;
+
+            StoredRow storedRow = stored.remove(swiftCode.getSwiftCode());
+            if (storedRow == null) {
+                inserts.add(swiftCode);
+            } else if (storedRow.fingerprint() != SwiftCodeFingerprint.of(swiftCode)) {
+                updates.add(swiftCode);
+                //an added change replaces the row in place, only a row that moved country has to leave the old one
+                if (!Objects.equals(storedRow.countryISO2(), swiftCode.getCountryISO2())) {
+                    changes.add(SwiftCodeChangedEvent.deletedChange(swiftCode.getSwiftCode(), storedRow.countryISO2()));
+                }
+            } else {
+                unchanged[0]++;
+            }
+        });
+
+        //whatever is left in the table was not in the new file
+        List<String> deletes = new ArrayList<>(stored.keySet());
+
+        int inserted = bulkWriter.write(inserts);
+        int updated = bulkWriter.update(updates);
+        int deleted = bulkWriter.delete(deletes);
+
+        inserts.forEach(swiftCode -> changes.add(SwiftCodeChangedEvent.addedChange(SwiftCodeDictionary.encode(swiftCode))));
+        updates.forEach(swiftCode -> changes.add(SwiftCodeChangedEvent.addedChange(SwiftCodeDictionary.encode(swiftCode))));
+        deletes.forEach(swiftCode -> changes.add(SwiftCodeChangedEvent.deletedChange(swiftCode, stored.get(swiftCode).countryISO2())));
+        return new DeltaReloadResult(inserted, updated, deleted, unchanged[0], changes);
+    }
+
+    private Map<String, StoredRow> loadStoredRows() {
+        Map<String, StoredRow> rows = new HashMap<>();
+        jdbcTemplate.query(STORED_ROWS_SQL, resultSet -> {
+            SwiftCode swiftCode = SwiftCode.builder()
+                    .swiftCode(resultSet.getString("swift_code"))
+                    .countryISO2(resultSet.getString("iso2"))
+                    .isHeadquarter(resultSet.getBoolean("is_headquarter"))
+                    .bankName(resultSet.getString("bank_name"))
+                    .address(resultSet.getString("address"))
+                    .city(resultSet.getString("city"))
+                    .country(resultSet.getString("country"))
+                    .timeZone(resultSet.getString("time_zone"))
+                    .build();
+            rows.put(swiftCode.getSwiftCode(), new StoredRow(SwiftCodeFingerprint.of(swiftCode), swiftCode.getCountryISO2()));
+        });
+        return rows;
+    }
+
+    //the country is kept so the change events can tell listeners which country lost a row
+    private record StoredRow(long fingerprint, String countryISO2) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+//raw rows of the directory file. the workbook is parsed once, afterwards the rows come from a binary snapshot
+//of it for as long as the file stays the same
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DirectoryFileReader {
+    private final SwiftCodeParser parser;
+
+    @Value("${swift.import.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    //the snapshot only saves a parse if it outlives the process, point this at a persistent volume
+    @Value("${swift.import.snapshot.dir:snapshots}")
+    private String snapshotDir;
+
+    //empty means <data file name>.snapshot in the snapshot directory, the data file may sit in a source tree or a read-only image
+    @Value("${swift.import.snapshot.path:}")
+    private String snapshotPath;
+
+    public void streamRows(File file, Consumer<String[]> rowConsumer) throws IOException {
+        if (!snapshotEnabled) {
+            parser.streamRows(file, rowConsumer);
+            return;
+        }
+
+        Path snapshot = snapshotPath.isBlank()
+                ? Path.of(snapshotDir, file.getName() + ".snapshot")
+                : Path.of(snapshotPath);
+        RowSnapshotFile.Source source = RowSnapshotFile.source(file.toPath());
+        int rows = RowSnapshotFile.read(snapshot, source, SwiftCodeParser.COLUMN_COUNT, rowConsumer);
+        if (rows >= 0) {
+            log.info("Read {} rows from snapshot {}", rows, snapshot);
+            return;
+        }
+
+        //rows go to the snapshot as they are parsed, none of them is held on to
+        try (RowSnapshotFile.Writer writer = openWriter(snapshot, source)) {
+            parser.streamRows(file, cells -> {
+                if (writer != null) {
+                    writer.add(cells);
+                }
+                rowConsumer.accept(cells);
+            });
+            if (writer != null) {
+                commit(writer, snapshot);
+            }
+        }
+    }
+
+    //a read-only directory only costs the next start another parse
+    private static RowSnapshotFile.Writer openWriter(Path snapshot, RowSnapshotFile.Source source) {
+        try {
+            return RowSnapshotFile.writer(snapshot, source, SwiftCodeParser.COLUMN_COUNT);
+        } catch (IOException e) {
+            log.warn("Could not write snapshot {}: {}", snapshot, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void commit(RowSnapshotFile.Writer writer, Path snapshot) {
+        try {
+            writer.commit();
+            log.info("Wrote snapshot of {} rows to {}", writer.rows(), snapshot);
+        } catch (IOException e) {
+            log.warn("Could not write snapshot {}: {}", snapshot, e.getMessage());
+        }
+    }
+}
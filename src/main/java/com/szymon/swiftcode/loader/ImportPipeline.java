@@ -0,0 +1,215 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+//reader -> [rows] -> mapper workers -> [batches] -> writer workers
+//queues are bounded, a full queue blocks the stage in front of it
+@Component
+@RequiredArgsConstructor
+public class ImportPipeline {
+    private static final String[] END_OF_ROWS = new String[0];
+    private static final List<SwiftCode> END_OF_BATCHES = new ArrayList<>(0);
+
+    private final DirectoryFileReader fileReader;
+    private final SwiftCodeParser parser;
+    private final SwiftCodeBulkWriter bulkWriter;
+    private final MeterRegistry meterRegistry;
+
+    //stats of the running or last finished import, read by the throughput gauges
+    private final Map<String, ImportStageStats> currentStats = new ConcurrentHashMap<>();
+
+    @Value("${swift.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${swift.import.mapper-threads:2}")
+    private int mapperThreads;
+
+    @Value("${swift.import.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${swift.import.queue-capacity:10000}")
+    private int queueCapacity;
+
+    //rows written by the running or last finished import
+    public long getWrittenRows() {
+        ImportStageStats writing = currentStats.get("write");
+        return writing == null ? 0 : writing.getRows();
+    }
+
+    public List<ImportStageStats> run(File file) throws Exception {
+        BlockingQueue<String[]> rows = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<SwiftCode>> batches = new ArrayBlockingQueue<>(writerThreads * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        ImportStageStats reading = new ImportStageStats("read", 1);
+        ImportStageStats mapping = new ImportStageStats("map", mapperThreads);
+        ImportStageStats writing = new ImportStageStats("write", writerThreads);
+        for (ImportStageStats stats : List.of(reading, mapping, writing)) {
+            currentStats.put(stats.getStage(), stats);
+            registerThroughputGauge(stats.getStage());
+        }
+        Counter readRows = rowCounter("read");
+        Counter rejectedRows = rowCounter("rejected");
+        Counter writtenRows = rowCounter("written");
+
+        ExecutorService mappers = Executors.newFixedThreadPool(mapperThreads);
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads);
+        try {
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                writerTasks.add(writers.submit(() -> write(batches, writing, writtenRows, failure)));
+            }
+            List<Future<?>> mapperTasks = new ArrayList<>();
+            for (int i = 0; i < mapperThreads; i++) {
+                mapperTasks.add(mappers.submit(() -> map(rows, batches, mapping, rejectedRows, failure)));
+            }
+
+            read(file, rows, reading, readRows, failure);
+
+            for (int i = 0; i < mapperThreads; i++) {
+                put(rows, END_OF_ROWS, failure);
+            }
+            for (Future<?> task : mapperTasks) {
+                task.get();
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                put(batches, END_OF_BATCHES, failure);
+            }
+            for (Future<?> task : writerTasks) {
+                task.get();
+            }
+        } finally {
+            mappers.shutdownNow();
+            writers.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return List.of(reading, mapping, writing);
+    }
+
+    private void read(File file, BlockingQueue<String[]> rows, ImportStageStats stats, Counter readRows,
+                      AtomicReference<Exception> failure) {
+        long start = System.nanoTime();
+        long[] waited = {0};
+        long[] count = {0};
+        try {
+            fileReader.streamRows(file, cells -> {
+                long putStart = System.nanoTime();
+                if (!put(rows, cells, failure)) {
+                    throw new IllegalStateException("Import aborted");
+                }
+                waited[0] += System.nanoTime() - putStart;
+                count[0]++;
+                readRows.increment();
+            });
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+        stats.record(count[0], System.nanoTime() - start - waited[0]);
+    }
+
+    private void map(BlockingQueue<String[]> rows, BlockingQueue<List<SwiftCode>> batches,
+                     ImportStageStats stats, Counter rejectedRows, AtomicReference<Exception> failure) {
+        List<SwiftCode> batch = new ArrayList<>(batchSize);
+        try {
+            while (failure.get() == null) {
+                String[] cells = rows.poll(100, TimeUnit.MILLISECONDS);
+                if (cells == null) continue;
+                if (cells == END_OF_ROWS) break;
+
+                long start = System.nanoTime();
+                SwiftCode swiftCode = parser.toSwiftCode(cells);
+                stats.record(1, System.nanoTime() - start);
+
+                if (swiftCode == null) {
+                    rejectedRows.increment();
+                    continue;
+                }
+                batch.add(swiftCode);
+                if (batch.size() >= batchSize) {
+                    put(batches, batch, failure);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                put(batches, batch, failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void write(BlockingQueue<List<SwiftCode>> batches, ImportStageStats stats, Counter writtenRows,
+                       AtomicReference<Exception> failure) {
+        try {
+            while (failure.get() == null) {
+                List<SwiftCode> batch = batches.poll(100, TimeUnit.MILLISECONDS);
+                if (batch == null) continue;
+                if (batch == END_OF_BATCHES) break;
+
+                long start = System.nanoTime();
+                int written = bulkWriter.write(batch);
+                stats.record(written, System.nanoTime() - start);
+                writtenRows.increment(written);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    //rate() over these gives the live rows/s while an import runs
+    private Counter rowCounter(String outcome) {
+        return Counter.builder("swift.import.rows")
+                .description("Rows processed by the import pipeline")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    //registering again returns the existing gauge, it always reads the latest stats from the map
+    private void registerThroughputGauge(String stage) {
+        Gauge.builder("swift.import.stage.throughput", currentStats, stats -> stats.get(stage).getRowsPerSecond())
+                .description("Rows per second a stage sustains with all its threads busy")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    //gives up once another stage failed, otherwise a dead consumer would block the producer forever
+    private static <T> boolean put(BlockingQueue<T> queue, T item, AtomicReference<Exception> failure) {
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return false;
+    }
+}
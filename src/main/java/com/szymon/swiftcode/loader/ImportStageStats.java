@@ -0,0 +1,50 @@
+package com.szymon.swiftcode.loader;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//busy time excludes waiting on the queues, so the stage with the lowest rows/s per thread is the bottleneck
+public class ImportStageStats {
+    private final String stage;
+    private final int threads;
+    private final LongAdder rows = new LongAdder();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    public ImportStageStats(String stage, int threads) {
+        this.stage = stage;
+        this.threads = threads;
+    }
+
+    public void record(long rowCount, long nanos) {
+        rows.add(rowCount);
+        busyNanos.addAndGet(nanos);
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public double getBusySeconds() {
+        return busyNanos.get() / 1_000_000_000.0;
+    }
+
+    public double getRowsPerSecondPerThread() {
+        double seconds = getBusySeconds();
+        return seconds == 0 ? 0 : getRows() / seconds;
+    }
+
+    //aggregate throughput the stage could sustain with all its threads busy
+    public double getRowsPerSecond() {
+        return getRowsPerSecondPerThread() * threads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows, %d thread(s), %.2f s busy, %.0f rows/s",
+                stage, getRows(), threads, getBusySeconds(), getRowsPerSecond());
+    }
+}
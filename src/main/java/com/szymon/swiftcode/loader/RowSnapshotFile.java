@@ -0,0 +1,227 @@
+package com.szymon.swiftcode.loader;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+//binary copy of the rows of a directory file: a header naming the source file it was made from, every distinct
+//cell value once in a dictionary, then one column of dictionary ids per cell position and a checksum of it all
+//
+//  magic | format version | source size | source checksum | row count | column count | dictionary size
+//  dictionary: (byte length, utf-8 bytes) per value
+//  columns: column count x row count ids, -1 for an empty cell
+//  crc32c of everything above
+final class RowSnapshotFile {
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x53574953;
+    private static final int NULL_ID = -1;
+    private static final int HEADER_BYTES = 36;
+    private static final int TRAILER_BYTES = 4;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    //a single mapping can't exceed 2 GiB, the source file is checksummed a slice at a time
+    private static final long CHECKSUM_SLICE_BYTES = 64L * 1024 * 1024;
+
+    private RowSnapshotFile() {
+    }
+
+    //identifies the source file, a snapshot is only used for the exact file it was written from
+    record Source(long size, long checksum) {
+    }
+
+    static Source source(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CRC32C crc = new CRC32C();
+            for (long position = 0; position < size; position += CHECKSUM_SLICE_BYTES) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_SLICE_BYTES, size - position)));
+            }
+            return new Source(size, crc.getValue());
+        }
+    }
+
+    static Writer writer(Path target, Source source, int columns) throws IOException {
+        return new Writer(target, source, columns);
+    }
+
+    //rows are spilled while they stream in: new values to a dictionary file and the ids of each column to a file
+    //of its own, so only the distinct values are kept in memory. commit writes the header, then the dictionary and
+    //the columns one after another into a temporary file next to the target and moves it over the target, a reader
+    //never sees a half written snapshot. a failed write is remembered and reported by commit, so the caller's
+    //import goes on either way
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path directory;
+        private final Source source;
+        private final int columns;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<Path> spills = new ArrayList<>();
+        private final List<DataOutputStream> spillStreams = new ArrayList<>();
+        private final DataOutputStream dictionary;
+        private final DataOutputStream[] columnIds;
+        private int rows;
+        private IOException failure;
+
+        private Writer(Path target, Source source, int columns) throws IOException {
+            this.target = target;
+            this.source = source;
+            this.columns = columns;
+            this.directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            try {
+                this.dictionary = spill(".dictionary");
+                this.columnIds = new DataOutputStream[columns];
+                for (int column = 0; column < columns; column++) {
+                    columnIds[column] = spill(".column" + column);
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private DataOutputStream spill(String suffix) throws IOException {
+            Path file = Files.createTempFile(directory, target.getFileName().toString(), suffix + ".tmp");
+            spills.add(file);
+            DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_BYTES));
+            spillStreams.add(stream);
+            return stream;
+        }
+
+        void add(String[] cells) {
+            if (failure != null) return;
+            try {
+                for (int column = 0; column < columns; column++) {
+                    String value = column < cells.length ? cells[column] : null;
+                    columnIds[column].writeInt(value == null ? NULL_ID : id(value));
+                }
+                rows++;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private int id(String value) throws IOException {
+            Integer id = ids.get(value);
+            if (id != null) return id;
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dictionary.writeInt(bytes.length);
+            dictionary.write(bytes);
+            ids.put(value, ids.size());
+            return ids.size() - 1;
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        void commit() throws IOException {
+            if (failure != null) throw failure;
+            for (DataOutputStream stream : spillStreams) {
+                stream.close();
+            }
+
+            Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try {
+                CRC32C crc = new CRC32C();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Files.newOutputStream(temp), crc), BUFFER_BYTES))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeLong(source.size());
+                    out.writeLong(source.checksum());
+                    out.writeInt(rows);
+                    out.writeInt(columns);
+                    out.writeInt(ids.size());
+                    //the dictionary spill comes first, then the columns in order
+                    for (Path spill : spills) {
+                        Files.copy(spill, out);
+                    }
+                    out.flush();
+                    out.writeInt((int) crc.getValue());
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        //the spill files never outlive the writer, committed or not
+        @Override
+        public void close() throws IOException {
+            IOException error = null;
+            for (DataOutputStream stream : spillStreams) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            for (Path spill : spills) {
+                Files.deleteIfExists(spill);
+            }
+            if (error != null) throw error;
+        }
+    }
+
+    //-1 when there is no usable snapshot for this source, no row is emitted then.
+    //the whole file is checked before the first row goes out, a corrupt snapshot never yields half the rows
+    static int read(Path snapshot, Source source, int columns, Consumer<String[]> rowConsumer) throws IOException {
+        if (!Files.isRegularFile(snapshot)) return -1;
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) return -1;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size - TRAILER_BYTES;
+            if (buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getLong(8) != source.size()
+                    || buffer.getLong(16) != source.checksum()
+                    || buffer.getInt(28) != columns) {
+                return -1;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, end));
+            if ((int) crc.getValue() != buffer.getInt(end)) return -1;
+
+            int rowCount = buffer.getInt(24);
+            String[] dictionary = new String[buffer.getInt(32)];
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < dictionary.length; i++) {
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                dictionary[i] = new String(value, StandardCharsets.UTF_8);
+            }
+
+            //repeated values come out as the same string instance
+            int columnsStart = buffer.position();
+            for (int row = 0; row < rowCount; row++) {
+                String[] cells = new String[columns];
+                for (int column = 0; column < columns; column++) {
+                    int id = buffer.getInt(columnsStart + (column * rowCount + row) * Integer.BYTES);
+                    cells[column] = id == NULL_ID ? null : dictionary[id];
+                }
+                rowConsumer.accept(cells);
+            }
+            return rowCount;
+        }
+    }
+}
@@ -2,10 +2,17 @@ package com.szymon.swiftcode.mapper;
 
 import com.szymon.swiftcode.dto.BranchDTO;
 import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.CountryStatisticsDTO;
 import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.dto.SwiftCodeSearchResultDTO;
+import com.szymon.swiftcode.dto.SwiftCodeStatisticsDTO;
+import com.szymon.swiftcode.index.SwiftCodeEntry;
+import com.szymon.swiftcode.index.SwiftCodeStatistics;
 import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
 
 import java.util.List;
+import java.util.Objects;
 
 public class SwiftCodeMapper {
     public static BranchDTO toBranchDTO(SwiftCode model){
@@ -39,6 +46,75 @@ public class SwiftCodeMapper {
         return dto;
     }
 
+    public static BranchDTO toBranchDTO(SwiftCodeRow row){
+        BranchDTO dto = new BranchDTO();
+        dto.setAddress(row.address());
+        dto.setBankName(row.bankName());
+        dto.setCountryISO2(row.countryISO2());
+        dto.setCountryName(row.country());
+        dto.setIsHeadquarter(row.isHeadquarter());
+        dto.setSwiftCode(row.swiftCode());
+
+        return dto;
+    }
+
+    public static HeadquarterDTO toHeadquarterDTO(SwiftCodeRow headquarter, List<SwiftCodeRow> branches){
+        HeadquarterDTO dto = new HeadquarterDTO();
+
+        dto.setSwiftCode(headquarter.swiftCode());
+        dto.setBankName(headquarter.bankName());
+        dto.setAddress(headquarter.address());
+        dto.setCountryISO2(headquarter.countryISO2());
+        dto.setCountryName(headquarter.country());
+        dto.setIsHeadquarter(true);
+
+        List<BranchDTO> branchDTOs = branches.stream()
+                .map(SwiftCodeMapper::toBranchDTO)
+                .toList();
+
+        dto.setBranches(branchDTOs);
+
+        return dto;
+    }
+
+    public static BranchDTO toBranchDTO(SwiftCodeEntry entry){
+        BranchDTO dto = new BranchDTO();
+        dto.setAddress(entry.address());
+        dto.setBankName(entry.bankName());
+        dto.setCountryISO2(entry.countryISO2());
+        dto.setCountryName(entry.country());
+        dto.setIsHeadquarter(entry.isHeadquarter());
+        dto.setSwiftCode(entry.swiftCode());
+
+        return dto;
+    }
+
+    public static HeadquarterDTO toHeadquarterDTO(SwiftCodeEntry headquarter, List<SwiftCodeEntry> branches){
+        HeadquarterDTO dto = new HeadquarterDTO();
+
+        dto.setSwiftCode(headquarter.swiftCode());
+        dto.setBankName(headquarter.bankName());
+        dto.setAddress(headquarter.address());
+        dto.setCountryISO2(headquarter.countryISO2());
+        dto.setCountryName(headquarter.country());
+        dto.setIsHeadquarter(true);
+
+        List<BranchDTO> branchDTOs = branches.stream()
+                .map(SwiftCodeMapper::toBranchDTO)
+                .toList();
+
+        dto.setBranches(branchDTOs);
+
+        return dto;
+    }
+
+    //rows of a details query: a headquarter gets every other row as its branches
+    public static BranchDTO toDetailsDTO(SwiftCodeRow row, List<SwiftCodeRow> rows){
+        return row.isHeadquarter()
+                ? toHeadquarterDTO(row, rows.stream().filter(branch -> branch != row).toList())
+                : toBranchDTO(row);
+    }
+
     public static CountryISO2CodeDTO countryISO2CodeDTO(String countryISO, String countryName, List<BranchDTO> branches){
         CountryISO2CodeDTO dto = new CountryISO2CodeDTO();
         dto.setCountryISO2(countryISO);
@@ -47,4 +123,47 @@ public class SwiftCodeMapper {
 
         return dto;
     }
+
+    public static SwiftCodeSearchResultDTO toSearchResultDTO(SwiftCodeEntry entry, double score){
+        SwiftCodeSearchResultDTO dto = new SwiftCodeSearchResultDTO();
+        dto.setAddress(entry.address());
+        dto.setBankName(entry.bankName());
+        dto.setCity(entry.city());
+        dto.setCountryISO2(entry.countryISO2());
+        dto.setCountryName(entry.country());
+        dto.setIsHeadquarter(entry.isHeadquarter());
+        dto.setSwiftCode(entry.swiftCode());
+        dto.setScore(score);
+
+        return dto;
+    }
+
+    public static CountryStatisticsDTO toCountryStatisticsDTO(String countryISO2, SwiftCodeStatistics.Country country){
+        return CountryStatisticsDTO.builder()
+                .countryISO2(countryISO2)
+                .countryName(country.countryName())
+                .headquarters(country.headquarters())
+                .branches(country.branches())
+                .banks(country.banks())
+                .build();
+    }
+
+    public static SwiftCodeStatisticsDTO toStatisticsDTO(SwiftCodeStatistics.Counters counters){
+        List<CountryStatisticsDTO> countries = counters.countries().keySet().stream()
+                .sorted()
+                .map(countryISO2 -> {
+                    SwiftCodeStatistics.Country country = counters.country(countryISO2);
+                    return country == null ? null : toCountryStatisticsDTO(countryISO2, country);
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        return SwiftCodeStatisticsDTO.builder()
+                .headquarters(counters.headquarters())
+                .branches(counters.branches())
+                .banks(counters.banks())
+                .countryCount(countries.size())
+                .countries(countries)
+                .build();
+    }
 }
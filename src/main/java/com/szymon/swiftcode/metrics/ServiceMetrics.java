@@ -0,0 +1,44 @@
+package com.szymon.swiftcode.metrics;
+
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//splits a service call into reading the data (snapshot or database) and mapping it to dtos
+@Component
+@RequiredArgsConstructor
+public class ServiceMetrics {
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> T timeData(String method, SwiftCodeSnapshot snapshot, Supplier<T> work) {
+        return timer(method, snapshot != null ? "snapshot" : "database").record(work);
+    }
+
+    public void timeData(String method, SwiftCodeSnapshot snapshot, Runnable work) {
+        timer(method, snapshot != null ? "snapshot" : "database").record(work);
+    }
+
+    public <T> T timeSearch(String method, Supplier<T> work) {
+        return timer(method, "search-index").record(work);
+    }
+
+    public <T> T timeMapping(String method, Supplier<T> work) {
+        return timer(method, "mapping").record(work);
+    }
+
+    private Timer timer(String method, String phase) {
+        return timers.computeIfAbsent(method + ':' + phase, key -> Timer.builder("swift.service.phase")
+                .description("Time spent in one phase of a service call")
+                .tag("method", method)
+                .tag("phase", phase)
+                .register(meterRegistry));
+    }
+}
@@ -1,9 +1,16 @@
 package com.szymon.swiftcode.model;
 
+import com.szymon.swiftcode.utils.SwiftCodeDictionary;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@Table(name = "swift_code", indexes = {
+        @Index(name = "ux_swift_code_swift_code", columnList = "swift_code", unique = true),
+        //equality on the country plus the order of keyset pages
+        @Index(name = "ix_swift_code_iso2_swift_code", columnList = "ISO2, swift_code"),
+        @Index(name = "ix_swift_code_bank_prefix", columnList = "bank_prefix, is_headquarter")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -18,9 +25,14 @@ public class SwiftCode {
     @Column(name="swift_code", length=11)
     private String swiftCode;
 
-    @Column(name="ISO2")
+    //always stored upper case, queries compare it directly
+    @Column(name="ISO2", length=2)
     private String countryISO2;
 
+    //first 8 characters of swift_code, shared by a headquarter and its branches
+    @Column(name="bank_prefix", length=8)
+    private String bankPrefix;
+
     @Column(name="is_headquarter")
     private boolean isHeadquarter;
 
@@ -39,4 +51,20 @@ public class SwiftCode {
     @Column(name="time_zone")
     private String timeZone;
 
+    @PrePersist
+    @PreUpdate
+    void fillBankPrefix() {
+        bankPrefix = bankPrefixOf(swiftCode);
+    }
+
+    //every loaded row shares the values it repeats with the other rows, see SwiftCodeDictionary
+    @PostLoad
+    void encodeRepeatedValues() {
+        SwiftCodeDictionary.encode(this);
+    }
+
+    public static String bankPrefixOf(String swiftCode) {
+        return swiftCode == null ? null : swiftCode.substring(0, Math.min(8, swiftCode.length()));
+    }
+
 }
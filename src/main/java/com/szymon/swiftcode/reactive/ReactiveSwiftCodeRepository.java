@@ -0,0 +1,71 @@
+package com.szymon.swiftcode.reactive;
+
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//the read queries of SwiftCodeRepository over r2dbc, rows come back as projections
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveSwiftCodeRepository {
+    private static final String COLUMNS = "s.swift_code, s.bank_name, s.address, s.iso2, s.country, s.is_headquarter";
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    //the code itself and, only when it is a headquarter, its branches
+    public Flux<SwiftCodeRow> findDetailsRows(String swiftCode, String bankPrefix) {
+        return databaseClient.sql("select " + COLUMNS + " from swift_code s where s.swift_code = :swiftCode"
+                        + " or (s.bank_prefix = :bankPrefix and s.is_headquarter = false"
+                        + " and exists (select 1 from swift_code h where h.swift_code = :swiftCode and h.is_headquarter = true))"
+                        + " order by s.swift_code")
+                .bind("swiftCode", swiftCode)
+                .bind("bankPrefix", bankPrefix)
+                .map(ReactiveSwiftCodeRepository::toRow)
+                .all();
+    }
+
+    //keyset page, the cursor is the last swift code of the previous page
+    public Flux<SwiftCodeRow> findCountryPage(String iso2, String after, int limit) {
+        return databaseClient.sql("select " + COLUMNS + " from swift_code s where s.iso2 = :iso2 and s.swift_code > :after"
+                        + " order by s.swift_code limit :limit")
+                .bind("iso2", iso2)
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveSwiftCodeRepository::toRow)
+                .all();
+    }
+
+    public Mono<Boolean> existsByCountryISO2(String iso2) {
+        return databaseClient.sql("select 1 from swift_code s where s.iso2 = :iso2 limit 1")
+                .bind("iso2", iso2)
+                .fetch()
+                .first()
+                .hasElement();
+    }
+
+    //rows are fetched in portions as the subscriber asks for them, a slow client doesn't pull the whole country
+    public Flux<SwiftCodeRow> streamByCountryISO2(String iso2) {
+        return databaseClient.sql("select " + COLUMNS + " from swift_code s where s.iso2 = :iso2 order by s.swift_code")
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .bind("iso2", iso2)
+                .map(ReactiveSwiftCodeRepository::toRow)
+                .all();
+    }
+
+    private static SwiftCodeRow toRow(Readable row) {
+        return new SwiftCodeRow(
+                row.get("swift_code", String.class),
+                row.get("bank_name", String.class),
+                row.get("address", String.class),
+                row.get("iso2", String.class),
+                row.get("country", String.class),
+                Boolean.TRUE.equals(row.get("is_headquarter", Boolean.class)));
+    }
+}
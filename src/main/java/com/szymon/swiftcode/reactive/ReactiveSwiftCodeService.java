@@ -0,0 +1,247 @@
+package com.szymon.swiftcode.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.cache.CachedResponse;
+import com.szymon.swiftcode.cache.SwiftCodeResponseCache;
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
+import com.szymon.swiftcode.dto.CountryStatisticsDTO;
+import com.szymon.swiftcode.dto.CountrySwiftCodesPageDTO;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
+import com.szymon.swiftcode.dto.SwiftCodeSearchResultDTO;
+import com.szymon.swiftcode.dto.SwiftCodeStatisticsDTO;
+import com.szymon.swiftcode.dto.WriteStatusDTO;
+import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.index.SwiftCodeIndex;
+import com.szymon.swiftcode.index.SwiftCodeMembershipFilter;
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import com.szymon.swiftcode.mapper.SwiftCodeMapper;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.service.SwiftCodeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+//reads go to the snapshot when there is one and to r2dbc otherwise, nothing here blocks an event loop thread
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveSwiftCodeService {
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final ReactiveSwiftCodeRepository repository;
+    private final SwiftCodeService swiftCodeService;
+    private final SwiftCodeIndex index;
+    private final SwiftCodeMembershipFilter membershipFilter;
+    private final SwiftCodeResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+
+    //bigger listings are streamed on every miss instead of being copied into the response cache
+    @Value("${swift.response-cache.max-streamed-size:262144}")
+    private int maxCachedCountryBytes;
+
+    //the same bytes, etags and gzip variant the servlet controller serves, a hit never leaves the event loop
+    public Mono<CachedResponse> getSwiftDetailsResponse(String swiftCode) {
+        return cached("code:" + swiftCode, () -> getSwiftDetails(swiftCode));
+    }
+
+    //a country listing is only served from the cache on a hit, a miss is streamed by streamSwiftCodesByCountryJson
+    public Mono<CachedResponse> getCachedSwiftCodesByCountryResponse(String countryISO2) {
+        return Mono.fromSupplier(() -> responseCache.getIfCurrent(countryKey(countryISO2)));
+    }
+
+    //the CountryISO2CodeDTO layout written piece by piece as the rows arrive, a large country is never held in memory.
+    //a copy of the bytes is kept only while it stays under the limit and is stored once the last row went out
+    public Flux<byte[]> streamSwiftCodesByCountryJson(String countryISO2) {
+        return Flux.defer(() -> {
+            long version = responseCache.getDatasetVersion();
+            ByteArrayOutputStream[] copy = {new ByteArrayOutputStream()};
+            return countryJson(normalizeCountry(countryISO2), streamSwiftCodesByCountry(countryISO2))
+                    .doOnNext(chunk -> {
+                        if (copy[0] == null) return;
+                        if (copy[0].size() + chunk.length > maxCachedCountryBytes) {
+                            copy[0] = null;
+                        } else {
+                            copy[0].writeBytes(chunk);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (copy[0] != null) responseCache.putSerialized(countryKey(countryISO2), version, copy[0].toByteArray());
+                    });
+        });
+    }
+
+    public Mono<BranchDTO> getSwiftDetails(String swiftCode) {
+        //captured once, the snapshot lookup can't fall back to jpa on the event loop
+        SwiftCodeSnapshot snapshot = index.current();
+        if (snapshot != null) {
+            return Mono.fromCallable(() -> swiftCodeService.getSwiftDetails(swiftCode, snapshot));
+        }
+        if (!membershipFilter.mightContain(swiftCode)) {
+            return Mono.error(new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode));
+        }
+
+        return repository.findDetailsRows(swiftCode, SwiftCode.bankPrefixOf(swiftCode))
+                .collectList()
+                .flatMap(rows -> Mono.justOrEmpty(rows.stream()
+                                .filter(row -> row.swiftCode().equals(swiftCode))
+                                .findFirst())
+                        .map(row -> SwiftCodeMapper.toDetailsDTO(row, rows)))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode)));
+    }
+
+    //rows are emitted one by one, the caller decides how much it buffers
+    public Flux<BranchDTO> streamSwiftCodesByCountry(String countryISO2) {
+        SwiftCodeSnapshot snapshot = index.current();
+        Flux<BranchDTO> swiftCodes = snapshot != null
+                ? Flux.fromIterable(snapshot.findByCountry(countryISO2)).map(SwiftCodeMapper::toBranchDTO)
+                : repository.streamByCountryISO2(normalizeCountry(countryISO2)).map(SwiftCodeMapper::toBranchDTO);
+
+        return swiftCodes.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Country", "countryISO2", countryISO2)));
+    }
+
+    public Mono<CountrySwiftCodesPageDTO> getSwiftCodesByCountryPage(String countryISO2, String after, int limit) {
+        int pageSize = Math.clamp(limit, 1, SwiftCodeService.MAX_PAGE_SIZE);
+
+        //one extra row tells whether there is a next page
+        SwiftCodeSnapshot snapshot = index.current();
+        Flux<BranchDTO> swiftCodes = snapshot != null
+                ? Flux.fromIterable(snapshot.findByCountryAfter(countryISO2, after, pageSize + 1)).map(SwiftCodeMapper::toBranchDTO)
+                : repository.findCountryPage(normalizeCountry(countryISO2), after == null ? "" : after, pageSize + 1)
+                        .map(SwiftCodeMapper::toBranchDTO);
+
+        //an empty page past the last code of a country is fine, any page of a country without codes is not
+        return swiftCodes.collectList().flatMap(rows -> rows.isEmpty()
+                ? countryExists(snapshot, countryISO2)
+                        .filter(Boolean::booleanValue)
+                        .map(exists -> rows)
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Country", "countryISO2", countryISO2)))
+                : Mono.just(rows)
+        ).map(rows -> {
+            boolean hasNext = rows.size() > pageSize;
+            List<BranchDTO> page = hasNext ? rows.subList(0, pageSize) : rows;
+            return CountrySwiftCodesPageDTO.builder()
+                    .countryISO2(countryISO2)
+                    .countryName(page.isEmpty() ? null : page.getFirst().getCountryName())
+                    .swiftCodes(page)
+                    .nextCursor(hasNext ? page.getLast().getSwiftCode() : null)
+                    .build();
+        });
+    }
+
+    private Mono<Boolean> countryExists(SwiftCodeSnapshot snapshot, String countryISO2) {
+        return snapshot != null
+                ? Mono.just(!snapshot.findByCountry(countryISO2).isEmpty())
+                : repository.existsByCountryISO2(normalizeCountry(countryISO2));
+    }
+
+    //answered from memory with no database fallback, no need to leave the event loop
+    public Mono<List<SwiftCodeSearchResultDTO>> searchSwiftCodes(String query, String countryISO2, int limit) {
+        return Mono.fromCallable(() -> swiftCodeService.searchSwiftCodes(query, countryISO2, limit));
+    }
+
+    public Mono<SwiftCodeStatisticsDTO> getStatistics() {
+        return Mono.fromCallable(swiftCodeService::getStatistics);
+    }
+
+    public Mono<CountryStatisticsDTO> getCountryStatistics(String countryISO2) {
+        return Mono.fromCallable(() -> swiftCodeService.getCountryStatistics(countryISO2));
+    }
+
+    //lookups and writes stay on the jpa service, it publishes the change events the read models rely on
+    public Mono<SwiftCodeLookupResponse> lookupSwiftCodes(List<String> swiftCodes) {
+        return blocking(() -> swiftCodeService.lookupSwiftCodes(swiftCodes));
+    }
+
+    public Mono<String> addSwiftCode(BranchDTO branchDTO) {
+        return blocking(() -> swiftCodeService.addSwiftCode(branchDTO));
+    }
+
+    public boolean acceptsBufferedWrites() {
+        return swiftCodeService.acceptsBufferedWrites();
+    }
+
+    public Mono<WriteStatusDTO> addSwiftCodeBuffered(BranchDTO branchDTO) {
+        return blocking(() -> swiftCodeService.addSwiftCodeBuffered(branchDTO));
+    }
+
+    public Mono<WriteStatusDTO> getWriteStatus(String swiftCode) {
+        return blocking(() -> swiftCodeService.getWriteStatus(swiftCode));
+    }
+
+    public Mono<String> deleteSwiftCode(String swiftCode) {
+        return blocking(() -> swiftCodeService.deleteSwiftCode(swiftCode));
+    }
+
+    public Mono<BulkOperationResponse> addSwiftCodes(List<BranchDTO> branchDTOs) {
+        return blocking(() -> swiftCodeService.addSwiftCodes(branchDTOs));
+    }
+
+    public Mono<BulkOperationResponse> deleteSwiftCodes(List<String> swiftCodes) {
+        return blocking(() -> swiftCodeService.deleteSwiftCodes(swiftCodes));
+    }
+
+    //misses are loaded here instead of in the cache, its single flight would park an event loop thread
+    //the version is read before the loader is subscribed, so a load that raced a change is never served as current
+    private Mono<CachedResponse> cached(String key, Supplier<Mono<?>> loader) {
+        return Mono.defer(() -> {
+            CachedResponse cached = responseCache.getIfCurrent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long version = responseCache.getDatasetVersion();
+            return loader.get().map(value -> responseCache.put(key, version, value));
+        });
+    }
+
+    private Flux<byte[]> countryJson(String countryISO2, Flux<BranchDTO> swiftCodes) {
+        return swiftCodes.switchOnFirst((first, rows) -> {
+            if (!first.hasValue()) return rows.map(this::toJson);
+
+            byte[] start = ("{\"countryISO2\":" + new String(toJson(countryISO2), StandardCharsets.UTF_8)
+                    + ",\"countryName\":" + new String(toJson(first.get().getCountryName()), StandardCharsets.UTF_8)
+                    + ",\"swiftCodes\":[").getBytes(StandardCharsets.UTF_8);
+            Flux<byte[]> items = rows.index()
+                    .concatMapIterable(item -> item.getT1() == 0
+                            ? List.of(toJson(item.getT2()))
+                            : List.of(SEPARATOR, toJson(item.getT2())));
+            return Flux.concat(Mono.just(start), items, Mono.just(END));
+        });
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //pl and PL are the same listing, one entry and one etag for both
+    private static String countryKey(String countryISO2) {
+        return "country:" + normalizeCountry(countryISO2);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    //iso2 is stored upper case, matching on the normalized value keeps the country index usable
+    private static String normalizeCountry(String countryISO2) {
+        return countryISO2.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,183 @@
+package com.szymon.swiftcode.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.szymon.swiftcode.cache.CachedResponse;
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
+import com.szymon.swiftcode.dto.CountryStatisticsDTO;
+import com.szymon.swiftcode.dto.CountrySwiftCodesPageDTO;
+import com.szymon.swiftcode.dto.MessageResponse;
+import com.szymon.swiftcode.dto.SwiftCodeLookupRequest;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
+import com.szymon.swiftcode.dto.SwiftCodeSearchResultDTO;
+import com.szymon.swiftcode.dto.SwiftCodeStatisticsDTO;
+import com.szymon.swiftcode.dto.WriteStatusDTO;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Function;
+
+//same endpoints as SwiftController, served by webflux when the reactive profile is active
+@RestController
+@Profile("reactive")
+@RequestMapping("/v1/swift-codes")
+@RequiredArgsConstructor
+public class ReactiveSwiftController {
+    private final ReactiveSwiftCodeService swiftCodeService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${swift.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @GetMapping("/{swiftCode}")
+    public Mono<ResponseEntity<byte[]>> getSwiftDetails(@PathVariable String swiftCode, ServerWebExchange exchange) {
+        return swiftCodeService.getSwiftDetailsResponse(swiftCode).map(response -> cachedJson(response, exchange));
+    }
+
+    @GetMapping("/search")
+    public Mono<List<SwiftCodeSearchResultDTO>> searchSwiftCodes(@RequestParam(defaultValue = "") String q,
+                                                                 @RequestParam(required = false) String countryISO2,
+                                                                 @RequestParam(defaultValue = "20") int limit) {
+        return swiftCodeService.searchSwiftCodes(q, countryISO2, limit);
+    }
+
+    @GetMapping("/stats")
+    public Mono<SwiftCodeStatisticsDTO> getStatistics() {
+        return swiftCodeService.getStatistics();
+    }
+
+    @GetMapping("/stats/country/{countryISO2}")
+    public Mono<CountryStatisticsDTO> getCountryStatistics(@PathVariable String countryISO2) {
+        return swiftCodeService.getCountryStatistics(countryISO2);
+    }
+
+    //a cache hit is sent as stored bytes with its etag, a miss is written row by row as the rows are read.
+    //both are buffers of a concrete type, with a wildcard body the json encoder would write them as an array
+    @GetMapping("/country/{countryISO2}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getSwiftByCountry(@PathVariable String countryISO2, ServerWebExchange exchange) {
+        return swiftCodeService.getCachedSwiftCodesByCountryResponse(countryISO2)
+                .map(response -> buffered(cachedJson(response, exchange)))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(swiftCodeService.streamSwiftCodesByCountryJson(countryISO2)
+                                .map(DefaultDataBufferFactory.sharedInstance::wrap))));
+    }
+
+    @GetMapping(value = "/country/{countryISO2}", params = "limit")
+    public Mono<CountrySwiftCodesPageDTO> getSwiftByCountryPage(@PathVariable String countryISO2,
+                                                                @RequestParam int limit,
+                                                                @RequestParam(required = false) String after) {
+        return swiftCodeService.getSwiftCodesByCountryPage(countryISO2, after, limit);
+    }
+
+    @GetMapping(value = "/country/{countryISO2}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BranchDTO> streamSwiftByCountry(@PathVariable String countryISO2) {
+        return swiftCodeService.streamSwiftCodesByCountry(countryISO2);
+    }
+
+    @PostMapping("/lookup")
+    public Mono<SwiftCodeLookupResponse> lookupSwiftCodes(@Valid @RequestBody SwiftCodeLookupRequest request) {
+        return swiftCodeService.lookupSwiftCodes(request.getSwiftCodes());
+    }
+
+    @DeleteMapping("/{swiftCode}")
+    public Mono<MessageResponse> deleteSwift(@PathVariable String swiftCode) {
+        return swiftCodeService.deleteSwiftCode(swiftCode).map(MessageResponse::new);
+    }
+
+    //prefer: respond-async is honoured only with write-behind enabled, otherwise the add is synchronous as usual
+    @PostMapping
+    public Mono<ResponseEntity<?>> addSwift(@Valid @RequestBody BranchDTO branchDTO,
+                                            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (prefer != null && prefer.contains("respond-async") && swiftCodeService.acceptsBufferedWrites()) {
+            return swiftCodeService.addSwiftCodeBuffered(branchDTO).map(status -> ResponseEntity.accepted()
+                    .location(URI.create("/v1/swift-codes/" + status.getSwiftCode() + "/write-status"))
+                    .header("Preference-Applied", "respond-async")
+                    .body(status));
+        }
+        return swiftCodeService.addSwiftCode(branchDTO)
+                .map(message -> ResponseEntity.status(HttpStatus.CREATED).body(new MessageResponse(message)));
+    }
+
+    @GetMapping("/{swiftCode}/write-status")
+    public Mono<WriteStatusDTO> getWriteStatus(@PathVariable String swiftCode) {
+        return swiftCodeService.getWriteStatus(swiftCode);
+    }
+
+    //items are validated one by one, an invalid entry is reported in the response instead of failing the whole request
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BulkOperationResponse> addSwiftBulk(@RequestBody List<BranchDTO> branchDTOs) {
+        return swiftCodeService.addSwiftCodes(branchDTOs);
+    }
+
+    //lines are decoded as they arrive and written chunk by chunk, a large upload is never held in memory as a whole
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<BulkOperationResponse> addSwiftBulkNdjson(@RequestBody Flux<String> lines) {
+        return inChunks(lines, objectMapper.readerFor(BranchDTO.class), swiftCodeService::addSwiftCodes);
+    }
+
+    @DeleteMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<BulkOperationResponse> deleteSwiftBulk(@RequestBody List<String> swiftCodes) {
+        return swiftCodeService.deleteSwiftCodes(swiftCodes);
+    }
+
+    @DeleteMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<BulkOperationResponse> deleteSwiftBulkNdjson(@RequestBody Flux<String> lines) {
+        return inChunks(lines, objectMapper.readerFor(String.class), swiftCodeService::deleteSwiftCodes);
+    }
+
+    //304 when If-None-Match matches, otherwise the stored bytes as they are
+    private static ResponseEntity<byte[]> cachedJson(CachedResponse response, ServerWebExchange exchange) {
+        String acceptEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = response.hasGzip() && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? response.gzipEtag() : response.etag();
+
+        if (exchange.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag);
+        if (response.hasGzip()) {
+            builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzipBody());
+        }
+        return builder.body(response.body());
+    }
+
+    private static ResponseEntity<Flux<DataBuffer>> buffered(ResponseEntity<byte[]> response) {
+        byte[] body = response.getBody();
+        return new ResponseEntity<>(body == null ? null : Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)),
+                response.getHeaders(), response.getStatusCode());
+    }
+
+    //one json value per line, blank lines are skipped. the next chunk is decoded only once the previous one is
+    //written, every chunk is its own transaction, so the chunks before a malformed line stay written
+    private <T> Mono<BulkOperationResponse> inChunks(Flux<String> lines, ObjectReader reader,
+                                                     Function<List<T>, Mono<BulkOperationResponse>> operation) {
+        return lines.filter(line -> !line.isBlank())
+                .concatMap(line -> Mono.fromCallable(() -> reader.<T>readValue(line)))
+                .buffer(bulkChunkSize)
+                .concatMap(operation)
+                .collectList()
+                .map(BulkOperationResponse::combine);
+    }
+}
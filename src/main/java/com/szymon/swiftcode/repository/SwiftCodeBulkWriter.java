@@ -0,0 +1,209 @@
+package com.szymon.swiftcode.repository;
+
+import com.szymon.swiftcode.model.SwiftCode;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+//bypasses JPA for imports - IDENTITY ids disable hibernate insert batching, so saveAll is one round trip per row
+@Repository
+@Timed("swift.bulk.writer")
+@RequiredArgsConstructor
+public class SwiftCodeBulkWriter {
+    static final String COLUMNS = "swift_code, iso2, is_headquarter, bank_name, address, city, country, time_zone, bank_prefix";
+
+    private static final String COPY_SQL = "COPY swift_code (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL = "INSERT INTO swift_code (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_NEW_SQL = INSERT_SQL + " ON CONFLICT (swift_code) DO NOTHING";
+    private static final String UPDATE_SQL = "UPDATE swift_code SET iso2 = ?, is_headquarter = ?, bank_name = ?, address = ?, "
+            + "city = ?, country = ?, time_zone = ? WHERE swift_code = ?";
+    private static final String DELETE_SQL = "DELETE FROM swift_code WHERE swift_code = ?";
+    //rows written before the column existed
+    private static final String BACKFILL_BANK_PREFIX_SQL = "UPDATE swift_code SET bank_prefix = substring(swift_code, 1, 8) WHERE bank_prefix IS NULL";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${swift.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${swift.import.use-copy:true}")
+    private boolean useCopy;
+
+    //every chunk is committed separately, a failing chunk is rolled back and stops the write
+    public int write(List<SwiftCode> swiftCodes) throws SQLException {
+        return inChunks(swiftCodes, (connection, chunk) -> {
+            if (useCopy && connection.isWrapperFor(PGConnection.class)) {
+                return copy(connection.unwrap(PGConnection.class).getCopyAPI(), chunk);
+            }
+            return insertBatch(connection, chunk);
+        });
+    }
+
+    public int update(List<SwiftCode> swiftCodes) throws SQLException {
+        return inChunks(swiftCodes, this::updateBatch);
+    }
+
+    public int delete(List<String> swiftCodes) throws SQLException {
+        return inChunks(swiftCodes, this::deleteBatch);
+    }
+
+    //unlike write/delete these join the caller's transaction, so a failure rolls back everything
+    public void insertInTransaction(List<SwiftCode> swiftCodes) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, swiftCodes, chunkSize, SwiftCodeBulkWriter::setInsertParameters);
+    }
+
+    //rows whose code already exists, e.g. added by a concurrent request, are skipped instead of failing the
+    //transaction. returns the rows that were inserted; each statement reports its own count as long as the
+    //driver doesn't rewrite batches (pgjdbc reWriteBatchedInserts)
+    public List<SwiftCode> insertNewInTransaction(List<SwiftCode> swiftCodes) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_NEW_SQL, swiftCodes, chunkSize, SwiftCodeBulkWriter::setInsertParameters);
+        List<SwiftCode> inserted = new ArrayList<>(swiftCodes.size());
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count != 0) {
+                    inserted.add(swiftCodes.get(i));
+                }
+                i++;
+            }
+        }
+        return inserted;
+    }
+
+    public void deleteInTransaction(List<String> swiftCodes) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, swiftCodes, chunkSize, (statement, swiftCode) -> statement.setString(1, swiftCode));
+    }
+
+    private static void setInsertParameters(PreparedStatement statement, SwiftCode swiftCode) throws SQLException {
+        statement.setString(1, swiftCode.getSwiftCode());
+        statement.setString(2, swiftCode.getCountryISO2());
+        statement.setBoolean(3, swiftCode.isHeadquarter());
+        statement.setString(4, swiftCode.getBankName());
+        statement.setString(5, swiftCode.getAddress());
+        statement.setString(6, swiftCode.getCity());
+        statement.setString(7, swiftCode.getCountry());
+        statement.setString(8, swiftCode.getTimeZone());
+        statement.setString(9, SwiftCode.bankPrefixOf(swiftCode.getSwiftCode()));
+    }
+
+    public int backfillBankPrefixes() {
+        return jdbcTemplate.update(BACKFILL_BANK_PREFIX_SQL);
+    }
+
+    private <T> int inChunks(List<T> items, ChunkWriter<T> chunkWriter) throws SQLException {
+        if (items.isEmpty()) return 0;
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int written = 0;
+                for (int from = 0; from < items.size(); from += chunkSize) {
+                    List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+                    try {
+                        written += chunkWriter.write(connection, chunk);
+                        connection.commit();
+                    } catch (SQLException | IOException e) {
+                        connection.rollback();
+                        throw new SQLException("Bulk write failed after " + written + " rows: " + e.getMessage(), e);
+                    }
+                }
+                return written;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private int copy(CopyManager copyManager, List<SwiftCode> chunk) throws SQLException, IOException {
+        StringBuilder csv = new StringBuilder(chunk.size() * 128);
+        for (SwiftCode swiftCode : chunk) {
+            appendCsvRow(csv, swiftCode);
+        }
+        return (int) copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+    }
+
+    private int insertBatch(Connection connection, List<SwiftCode> chunk) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (SwiftCode swiftCode : chunk) {
+                setInsertParameters(statement, swiftCode);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            return chunk.size();
+        }
+    }
+
+    private int updateBatch(Connection connection, List<SwiftCode> chunk) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            for (SwiftCode swiftCode : chunk) {
+                statement.setString(1, swiftCode.getCountryISO2());
+                statement.setBoolean(2, swiftCode.isHeadquarter());
+                statement.setString(3, swiftCode.getBankName());
+                statement.setString(4, swiftCode.getAddress());
+                statement.setString(5, swiftCode.getCity());
+                statement.setString(6, swiftCode.getCountry());
+                statement.setString(7, swiftCode.getTimeZone());
+                statement.setString(8, swiftCode.getSwiftCode());
+                statement.addBatch();
+            }
+            return sum(statement.executeBatch());
+        }
+    }
+
+    private int deleteBatch(Connection connection, List<String> chunk) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            for (String swiftCode : chunk) {
+                statement.setString(1, swiftCode);
+                statement.addBatch();
+            }
+            return sum(statement.executeBatch());
+        }
+    }
+
+    private static int sum(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    //quoted values keep empty strings, an unquoted empty field is read by COPY as NULL
+    static void appendCsvRow(StringBuilder csv, SwiftCode swiftCode) {
+        appendCsvValue(csv, swiftCode.getSwiftCode()).append(',');
+        appendCsvValue(csv, swiftCode.getCountryISO2()).append(',');
+        csv.append(swiftCode.isHeadquarter()).append(',');
+        appendCsvValue(csv, swiftCode.getBankName()).append(',');
+        appendCsvValue(csv, swiftCode.getAddress()).append(',');
+        appendCsvValue(csv, swiftCode.getCity()).append(',');
+        appendCsvValue(csv, swiftCode.getCountry()).append(',');
+        appendCsvValue(csv, swiftCode.getTimeZone()).append(',');
+        appendCsvValue(csv, SwiftCode.bankPrefixOf(swiftCode.getSwiftCode())).append('\n');
+    }
+
+    private static StringBuilder appendCsvValue(StringBuilder csv, String value) {
+        if (value == null) return csv;
+
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        int write(Connection connection, List<T> chunk) throws SQLException, IOException;
+    }
+}
@@ -1,19 +1,75 @@
 package com.szymon.swiftcode.repository;
 
+import com.szymon.swiftcode.cache.SwiftCodeQueryCacheConfig;
 import com.szymon.swiftcode.model.SwiftCode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface SwiftCodeRepository extends JpaRepository<SwiftCode, Long> {
 
     SwiftCode findBySwiftCodeAndIsHeadquarterFalse(String swiftCode);
 
-    List<SwiftCode> findBySwiftCodeStartingWithAndIsHeadquarterFalse(String prefix);
-
     SwiftCode findBySwiftCode(String swiftCode);
 
-    List<SwiftCode> findByCountryISO2IgnoreCase(String iso2);
+    //the code itself and, only when it is a headquarter, its branches - one round trip, no entities
+    //sync loads, an eviction for a key waits for its running load so a stale result is never left behind
+    @Cacheable(cacheNames = SwiftCodeQueryCacheConfig.SWIFT_CODE_DETAILS, key = "#p0", sync = true)
+    @Transactional(readOnly = true)
+    @Query("select new com.szymon.swiftcode.repository.SwiftCodeRow(s.swiftCode, s.bankName, s.address, s.countryISO2, s.country, s.isHeadquarter)"
+            + " from SwiftCode s where s.swiftCode = :swiftCode"
+            + " or (s.bankPrefix = :bankPrefix and s.isHeadquarter = false"
+            + " and exists (select 1 from SwiftCode h where h.swiftCode = :swiftCode and h.isHeadquarter = true))"
+            + " order by s.swiftCode")
+    List<SwiftCodeRow> findDetailsRows(@Param("swiftCode") String swiftCode, @Param("bankPrefix") String bankPrefix);
+
+    List<SwiftCode> findBySwiftCodeIn(Collection<String> swiftCodes);
+
+    @Query("select s from SwiftCode s where s.isHeadquarter = false and s.bankPrefix in :prefixes")
+    List<SwiftCode> findBranchesByBankPrefixes(@Param("prefixes") Collection<String> prefixes);
+
+    @Query("select s.swiftCode from SwiftCode s")
+    List<String> findAllSwiftCodes();
+
+    @Query("select s.swiftCode from SwiftCode s where s.swiftCode in :swiftCodes")
+    List<String> findExistingSwiftCodes(@Param("swiftCodes") Collection<String> swiftCodes);
+
+    //null when the code is not stored, deletes use it to tell listeners which country lost a row
+    @Query("select s.countryISO2 from SwiftCode s where s.swiftCode = :swiftCode")
+    String findCountryISO2BySwiftCode(@Param("swiftCode") String swiftCode);
+
+    @Query("select new com.szymon.swiftcode.repository.SwiftCodeRow(s.swiftCode, s.bankName, s.address, s.countryISO2, s.country, s.isHeadquarter)"
+            + " from SwiftCode s where s.swiftCode in :swiftCodes")
+    List<SwiftCodeRow> findRowsBySwiftCodeIn(@Param("swiftCodes") Collection<String> swiftCodes);
+
+    //iso2 is upper case in the table, callers normalize the argument so the index can be used
+    //cached as projections like findDetailsRows, a cached entity could be changed by whoever reads it
+    @Cacheable(cacheNames = SwiftCodeQueryCacheConfig.COUNTRIES, sync = true)
+    @Transactional(readOnly = true)
+    @Query("select new com.szymon.swiftcode.repository.SwiftCodeRow(s.swiftCode, s.bankName, s.address, s.countryISO2, s.country, s.isHeadquarter)"
+            + " from SwiftCode s where s.countryISO2 = :iso2 order by s.swiftCode")
+    List<SwiftCodeRow> findByCountryISO2(@Param("iso2") String iso2);
+
+    boolean existsByCountryISO2(String iso2);
+
+    //keyset page, the cursor is the last swift code of the previous page
+    @Query("select s from SwiftCode s where s.countryISO2 = :iso2 and s.swiftCode > :after order by s.swiftCode")
+    List<SwiftCode> findCountryPage(@Param("iso2") String iso2, @Param("after") String after, Limit limit);
+
+    //needs an open transaction, postgres only honours the fetch size with autocommit off
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from SwiftCode s where s.countryISO2 = :iso2 order by s.swiftCode")
+    Stream<SwiftCode> streamByCountryISO2(@Param("iso2") String iso2);
 
     boolean existsBySwiftCode(String swiftCode);
 
@@ -0,0 +1,15 @@
+package com.szymon.swiftcode.repository;
+
+import com.szymon.swiftcode.utils.SwiftCodeDictionary;
+
+//read-only projection, filled straight from the result set without a managed entity
+public record SwiftCodeRow(String swiftCode, String bankName, String address, String countryISO2,
+                           String country, boolean isHeadquarter) {
+
+    //rows are kept by the query cache, repeated values are shared like in loaded entities
+    public SwiftCodeRow {
+        bankName = SwiftCodeDictionary.bankName(bankName);
+        countryISO2 = SwiftCodeDictionary.countryISO2(countryISO2);
+        country = SwiftCodeDictionary.country(country);
+    }
+}
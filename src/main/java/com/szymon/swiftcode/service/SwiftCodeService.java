@@ -1,67 +1,337 @@
 package com.szymon.swiftcode.service;
 
 import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkItemResult;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
 import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.CountryStatisticsDTO;
+import com.szymon.swiftcode.dto.CountrySwiftCodesPageDTO;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
+import com.szymon.swiftcode.dto.SwiftCodeSearchResultDTO;
+import com.szymon.swiftcode.dto.SwiftCodeStatisticsDTO;
+import com.szymon.swiftcode.dto.WriteStatusDTO;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
 import com.szymon.swiftcode.exceptions.DuplicateResourceException;
 import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.exceptions.ServiceUnavailableException;
+import com.szymon.swiftcode.exceptions.WritePendingException;
+import com.szymon.swiftcode.index.SwiftCodeEntry;
+import com.szymon.swiftcode.index.SwiftCodeIndex;
+import com.szymon.swiftcode.index.SwiftCodeMembershipFilter;
+import com.szymon.swiftcode.index.SwiftCodeNgramIndex;
+import com.szymon.swiftcode.index.SwiftCodeSearchIndex;
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import com.szymon.swiftcode.index.SwiftCodeStatistics;
 import com.szymon.swiftcode.mapper.SwiftCodeMapper;
+import com.szymon.swiftcode.metrics.ServiceMetrics;
 import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
 import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import com.szymon.swiftcode.utils.SwiftCodeDictionary;
+import com.szymon.swiftcode.writebehind.SwiftCodeWriteBuffer;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("swift.service")
 @RequiredArgsConstructor
 public class SwiftCodeService {
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_SEARCH_RESULTS = 100;
+
     private final SwiftCodeRepository repository;
+    private final SwiftCodeBulkWriter bulkWriter;
+    private final Validator validator;
+    private final SwiftCodeIndex index;
+    private final SwiftCodeMembershipFilter membershipFilter;
+    private final SwiftCodeSearchIndex searchIndex;
+    private final SwiftCodeStatistics statistics;
+    private final SwiftCodeWriteBuffer writeBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final ServiceMetrics metrics;
 
     //endpoint: /api/v1/swiftcode/{swiftCode}
     public BranchDTO getSwiftDetails(String swiftCode) {
-        SwiftCode swiftCodeEntity = Optional.ofNullable(repository.findBySwiftCode(swiftCode))
+        if (!membershipFilter.mightContain(swiftCode)) {
+            throw new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode);
+        }
+        SwiftCodeSnapshot snapshot = index.current();
+        if (snapshot == null) {
+            return getSwiftDetailsFromDatabase(swiftCode);
+        }
+        return getSwiftDetails(swiftCode, snapshot);
+    }
+
+    //answered from the given snapshot only, never touches the database
+    public BranchDTO getSwiftDetails(String swiftCode, SwiftCodeSnapshot snapshot) {
+        SwiftCodeEntry swiftCodeEntry = Optional.ofNullable(metrics.timeData("getSwiftDetails", snapshot,
+                        () -> snapshot.findBySwiftCode(swiftCode)))
                 .orElseThrow(() -> new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode));
 
 
-        if(swiftCodeEntity.isHeadquarter()){
+        if(swiftCodeEntry.isHeadquarter()){
             String branchPrefix = swiftCode.substring(0, 8);
 
-            List<SwiftCode> branches = repository.findBySwiftCodeStartingWithAndIsHeadquarterFalse(branchPrefix);
+            List<SwiftCodeEntry> branches = metrics.timeData("getSwiftDetails", snapshot, () -> snapshot.findBranches(branchPrefix));
 
-            return SwiftCodeMapper.toHeadquarterDTO(swiftCodeEntity, branches);
+            return metrics.timeMapping("getSwiftDetails", () -> SwiftCodeMapper.toHeadquarterDTO(swiftCodeEntry, branches));
         }else{
-            return SwiftCodeMapper.toBranchDTO(swiftCodeEntity);
+            return metrics.timeMapping("getSwiftDetails", () -> SwiftCodeMapper.toBranchDTO(swiftCodeEntry));
         }
     }
 
+    //one query returns the code and, for a headquarter, its branches as projections
+    private BranchDTO getSwiftDetailsFromDatabase(String swiftCode) {
+        List<SwiftCodeRow> rows = metrics.timeData("getSwiftDetails", null,
+                () -> repository.findDetailsRows(swiftCode, bankPrefix(swiftCode)));
+
+        SwiftCodeRow row = rows.stream()
+                .filter(candidate -> candidate.swiftCode().equals(swiftCode))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode));
+
+        return metrics.timeMapping("getSwiftDetails", () -> SwiftCodeMapper.toDetailsDTO(row, rows));
+    }
+
+    //endpoint: post /api/v1/swiftcode/lookup
+    public SwiftCodeLookupResponse lookupSwiftCodes(List<String> swiftCodes) {
+        Set<String> requested = new LinkedHashSet<>(swiftCodes);
+        SwiftCodeSnapshot snapshot = index.current();
+
+        //definite misses are reported as not found without being queried
+        Set<String> candidates = requested.stream()
+                .filter(membershipFilter::mightContain)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<String, SwiftCodeEntry> entries = new HashMap<>();
+        Map<String, List<SwiftCodeEntry>> branchesByPrefix = new HashMap<>();
+        metrics.timeData("lookupSwiftCodes", snapshot, () -> loadLookupData(candidates, snapshot, entries, branchesByPrefix));
+
+        return metrics.timeMapping("lookupSwiftCodes", () -> toLookupResponse(requested, entries, branchesByPrefix));
+    }
+
+    private void loadLookupData(Set<String> requested, SwiftCodeSnapshot snapshot,
+                                Map<String, SwiftCodeEntry> entries, Map<String, List<SwiftCodeEntry>> branchesByPrefix) {
+        if (snapshot != null) {
+            for (String swiftCode : requested) {
+                SwiftCodeEntry entry = snapshot.findBySwiftCode(swiftCode);
+                if (entry == null) continue;
+
+                entries.put(swiftCode, entry);
+                if (entry.isHeadquarter()) {
+                    branchesByPrefix.put(bankPrefix(swiftCode), snapshot.findBranches(bankPrefix(swiftCode)));
+                }
+            }
+        } else {
+            //one query for the codes and one for the branches of every headquarter among them
+            for (List<String> chunk : chunks(new ArrayList<>(requested))) {
+                repository.findBySwiftCodeIn(chunk).forEach(entity -> entries.put(entity.getSwiftCode(), SwiftCodeEntry.of(entity)));
+            }
+            List<String> prefixes = entries.values().stream()
+                    .filter(SwiftCodeEntry::isHeadquarter)
+                    .map(entry -> bankPrefix(entry.swiftCode()))
+                    .distinct()
+                    .toList();
+            for (List<String> chunk : chunks(prefixes)) {
+                repository.findBranchesByBankPrefixes(chunk).forEach(branch ->
+                        branchesByPrefix.computeIfAbsent(bankPrefix(branch.getSwiftCode()), k -> new ArrayList<>()).add(SwiftCodeEntry.of(branch)));
+            }
+        }
+    }
+
+    private static SwiftCodeLookupResponse toLookupResponse(Set<String> requested, Map<String, SwiftCodeEntry> entries,
+                                                            Map<String, List<SwiftCodeEntry>> branchesByPrefix) {
+        List<BranchDTO> found = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        for (String swiftCode : requested) {
+            SwiftCodeEntry entry = entries.get(swiftCode);
+            if (entry == null) {
+                notFound.add(swiftCode);
+            } else if (entry.isHeadquarter()) {
+                found.add(SwiftCodeMapper.toHeadquarterDTO(entry, branchesByPrefix.getOrDefault(bankPrefix(swiftCode), List.of())));
+            } else {
+                found.add(SwiftCodeMapper.toBranchDTO(entry));
+            }
+        }
+
+        return SwiftCodeLookupResponse.builder()
+                .found(found)
+                .notFound(notFound)
+                .build();
+    }
+
     //endpoint: /api/v1/swiftcode/country/{countryISO2}
     public CountryISO2CodeDTO getSwiftCodesByCountry(String countryISO2) {
-        List<SwiftCode> swiftCodes = repository.findByCountryISO2IgnoreCase(countryISO2);
+        SwiftCodeSnapshot snapshot = index.current();
+        if (snapshot == null) {
+            return getSwiftCodesByCountryFromDatabase(countryISO2);
+        }
+        List<SwiftCodeEntry> swiftCodes = metrics.timeData("getSwiftCodesByCountry", snapshot, () -> snapshot.findByCountry(countryISO2));
 
         String countryName;
         if(swiftCodes.isEmpty()){
             throw new ResourceNotFoundException("Country", "countryISO2", countryISO2);
         }else{
-            countryName = swiftCodes.getFirst().getCountry();
+            countryName = swiftCodes.getFirst().country();
+        }
+
+        return metrics.timeMapping("getSwiftCodesByCountry", () -> {
+            List<BranchDTO> branchDTOs = swiftCodes.stream()
+                    .map(SwiftCodeMapper::toBranchDTO)
+                    .toList();
+
+            return SwiftCodeMapper.countryISO2CodeDTO(countryISO2, countryName, branchDTOs);
+        });
+    }
+
+    //rows come from the query cache as immutable projections, never as entities a caller could change
+    private CountryISO2CodeDTO getSwiftCodesByCountryFromDatabase(String countryISO2) {
+        List<SwiftCodeRow> rows = metrics.timeData("getSwiftCodesByCountry", null,
+                () -> repository.findByCountryISO2(normalizeCountry(countryISO2)));
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Country", "countryISO2", countryISO2);
+        }
+
+        return metrics.timeMapping("getSwiftCodesByCountry", () -> SwiftCodeMapper.countryISO2CodeDTO(countryISO2,
+                rows.getFirst().country(), rows.stream().map(SwiftCodeMapper::toBranchDTO).toList()));
+    }
+
+    //endpoint: /api/v1/swiftcode/country/{countryISO2}?limit=&after=
+    @Transactional(readOnly = true)
+    public CountrySwiftCodesPageDTO getSwiftCodesByCountryPage(String countryISO2, String after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        //one extra row tells whether there is a next page
+        SwiftCodeSnapshot snapshot = index.current();
+        List<SwiftCodeEntry> swiftCodes = metrics.timeData("getSwiftCodesByCountryPage", snapshot, () -> snapshot != null
+                ? snapshot.findByCountryAfter(countryISO2, after, pageSize + 1)
+                : repository.findCountryPage(normalizeCountry(countryISO2), after == null ? "" : after, Limit.of(pageSize + 1))
+                        .stream().map(SwiftCodeEntry::of).toList());
+
+        //an empty page past the last code of a country is fine, any page of a country without codes is not
+        if (swiftCodes.isEmpty()) {
+            checkCountryExists(countryISO2);
+        }
+
+        boolean hasNext = swiftCodes.size() > pageSize;
+        List<SwiftCodeEntry> page = hasNext ? swiftCodes.subList(0, pageSize) : swiftCodes;
+
+        return metrics.timeMapping("getSwiftCodesByCountryPage", () -> CountrySwiftCodesPageDTO.builder()
+                .countryISO2(countryISO2)
+                .countryName(page.isEmpty() ? null : page.getFirst().country())
+                .swiftCodes(page.stream().map(SwiftCodeMapper::toBranchDTO).toList())
+                .nextCursor(hasNext ? page.getLast().swiftCode() : null)
+                .build());
+    }
+
+    //endpoint: /api/v1/swiftcode/search?q=&countryISO2=&limit=
+    public List<SwiftCodeSearchResultDTO> searchSwiftCodes(String query, String countryISO2, int limit) {
+        SwiftCodeNgramIndex current = searchIndex.current();
+        if (current == null) {
+            throw new ServiceUnavailableException("Search index is not built yet");
         }
 
-        List<BranchDTO> branchDTOs = swiftCodes.stream()
-                .map(SwiftCodeMapper::toBranchDTO)
-                .toList();
+        List<SwiftCodeNgramIndex.Hit> hits = metrics.timeSearch("searchSwiftCodes",
+                () -> current.search(query, countryISO2, Math.clamp(limit, 1, MAX_SEARCH_RESULTS)));
+
+        return metrics.timeMapping("searchSwiftCodes", () -> hits.stream()
+                .map(hit -> SwiftCodeMapper.toSearchResultDTO(hit.swiftCode(), hit.score()))
+                .toList());
+    }
+
+    //endpoint: /api/v1/swiftcode/stats
+    public SwiftCodeStatisticsDTO getStatistics() {
+        SwiftCodeStatistics.Counters counters = currentStatistics();
+        return metrics.timeMapping("getStatistics", () -> SwiftCodeMapper.toStatisticsDTO(counters));
+    }
 
-        return SwiftCodeMapper.countryISO2CodeDTO(countryISO2, countryName, branchDTOs);
+    //endpoint: /api/v1/swiftcode/stats/country/{countryISO2}
+    public CountryStatisticsDTO getCountryStatistics(String countryISO2) {
+        SwiftCodeStatistics.Country country = currentStatistics().country(countryISO2);
+        if (country == null) {
+            throw new ResourceNotFoundException("Country", "countryISO2", countryISO2);
+        }
+        return SwiftCodeMapper.toCountryStatisticsDTO(countryISO2.toUpperCase(Locale.ROOT), country);
+    }
+
+    private SwiftCodeStatistics.Counters currentStatistics() {
+        SwiftCodeStatistics.Counters counters = statistics.current();
+        if (counters == null) {
+            throw new ServiceUnavailableException("Statistics are not built yet");
+        }
+        return counters;
+    }
+
+    //checked before streaming starts, once the first row is written the status can't change to 404
+    public void checkCountryExists(String countryISO2) {
+        SwiftCodeSnapshot snapshot = index.current();
+        boolean exists = snapshot != null
+                ? !snapshot.findByCountry(countryISO2).isEmpty()
+                : repository.existsByCountryISO2(normalizeCountry(countryISO2));
+
+        if (!exists) {
+            throw new ResourceNotFoundException("Country", "countryISO2", countryISO2);
+        }
+    }
+
+    //endpoint: /api/v1/swiftcode/country/{countryISO2} with accept application/x-ndjson
+    @Transactional(readOnly = true)
+    public void streamSwiftCodesByCountry(String countryISO2, Consumer<BranchDTO> consumer) {
+        SwiftCodeSnapshot snapshot = index.current();
+        if (snapshot != null) {
+            snapshot.findByCountry(countryISO2).forEach(swiftCode -> consumer.accept(SwiftCodeMapper.toBranchDTO(swiftCode)));
+            return;
+        }
+
+        //rows are detached once written, so the persistence context doesn't grow with the country
+        try (Stream<SwiftCode> swiftCodes = repository.streamByCountryISO2(normalizeCountry(countryISO2))) {
+            swiftCodes.forEach(swiftCode -> {
+                consumer.accept(SwiftCodeMapper.toBranchDTO(swiftCode));
+                entityManager.detach(swiftCode);
+            });
+        }
     }
 
     //endpoint: delete /api/v1/swiftcode/{swiftCode}
     @Transactional
     public String deleteSwiftCode(String swiftCode) {
-        if (!repository.existsBySwiftCode(swiftCode)) {
+        //a buffered add not written yet would land after the delete and bring the code back
+        if (writeBuffer.isPending(swiftCode)) {
+            throw new WritePendingException("SwiftCode", "swiftCode", swiftCode);
+        }
+        String countryISO2 = membershipFilter.mightContain(swiftCode) ? repository.findCountryISO2BySwiftCode(swiftCode) : null;
+        if (countryISO2 == null) {
             throw new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode);
         }
 
         repository.deleteBySwiftCode(swiftCode);
+        eventPublisher.publishEvent(SwiftCodeChangedEvent.deleted(swiftCode, countryISO2));
         return "Swift code deleted successfully";
     }
 
@@ -69,20 +339,221 @@ public class SwiftCodeService {
     @Transactional
     public String addSwiftCode(BranchDTO branchDTO) {
         String swiftCode = branchDTO.getSwiftCode();
-        if (repository.existsBySwiftCode(swiftCode)) {
+        //a buffered add of the same code is a duplicate too, its insert would otherwise fail once flushed
+        if (writeBuffer.isPending(swiftCode) || repository.existsBySwiftCode(swiftCode)) {
             throw new DuplicateResourceException("SwiftCode", "swiftCode", branchDTO.getSwiftCode());
         }
 
-        SwiftCode swiftCodeEntity = SwiftCode.builder()
+        SwiftCode swiftCodeEntity = toEntity(branchDTO);
+
+        membershipFilter.add(swiftCode);
+        repository.save(swiftCodeEntity);
+        eventPublisher.publishEvent(SwiftCodeChangedEvent.added(swiftCodeEntity));
+        return "Swift code added successfully";
+    }
+
+    public boolean acceptsBufferedWrites() {
+        return writeBuffer.isAccepting();
+    }
+
+    //endpoint: post /api/v1/swiftcode with prefer: respond-async
+    //checked against memory only, the insert happens later in a batch with other buffered adds
+    public WriteStatusDTO addSwiftCodeBuffered(BranchDTO branchDTO) {
+        String swiftCode = branchDTO.getSwiftCode();
+        if (isStored(swiftCode)) {
+            throw new DuplicateResourceException("SwiftCode", "swiftCode", swiftCode);
+        }
+
+        writeBuffer.enqueue(toEntity(branchDTO));
+        membershipFilter.add(swiftCode);
+        return new WriteStatusDTO(swiftCode, WriteStatusDTO.Status.PENDING, "Swift code accepted for writing");
+    }
+
+    //endpoint: /api/v1/swiftcode/{swiftCode}/write-status
+    public WriteStatusDTO getWriteStatus(String swiftCode) {
+        if (writeBuffer.isPending(swiftCode)) {
+            return new WriteStatusDTO(swiftCode, WriteStatusDTO.Status.PENDING, "Swift code is waiting to be written");
+        }
+        String failure = writeBuffer.failure(swiftCode);
+        if (failure != null) {
+            return new WriteStatusDTO(swiftCode, WriteStatusDTO.Status.FAILED, failure);
+        }
+        if (isStored(swiftCode)) {
+            return new WriteStatusDTO(swiftCode, WriteStatusDTO.Status.PERSISTED, "Swift code is written");
+        }
+        throw new ResourceNotFoundException("SwiftCode", "swiftCode", swiftCode);
+    }
+
+    //endpoint: post /api/v1/swiftcode/bulk
+    @Transactional
+    public BulkOperationResponse addSwiftCodes(List<BranchDTO> branchDTOs) {
+        BulkItemResult[] results = new BulkItemResult[branchDTOs.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < branchDTOs.size(); i++) {
+            BranchDTO branchDTO = branchDTOs.get(i);
+            if (branchDTO == null) {
+                results[i] = itemResult(null, BulkItemResult.Status.INVALID, "Swift code entry cannot be empty");
+                continue;
+            }
+
+            String swiftCode = branchDTO.getSwiftCode();
+            Set<ConstraintViolation<BranchDTO>> violations = validator.validate(branchDTO);
+            if (!violations.isEmpty()) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.INVALID, violationMessage(violations));
+            } else if (candidates.putIfAbsent(swiftCode, i) != null) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.DUPLICATE, "Swift code repeated in request");
+            }
+        }
+
+        Set<String> existing = findExistingSwiftCodes(candidates.keySet());
+        List<SwiftCode> entities = new ArrayList<>();
+        candidates.forEach((swiftCode, i) -> {
+            if (existing.contains(swiftCode) || writeBuffer.isPending(swiftCode)) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.DUPLICATE,
+                        String.format("SwiftCode already exists with swiftCode: '%s'", swiftCode));
+            } else {
+                entities.add(toEntity(branchDTOs.get(i)));
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.CREATED, "Swift code added successfully");
+            }
+        });
+
+        if (entities.isEmpty()) {
+            return bulkResponse(results, 0);
+        }
+
+        entities.forEach(entity -> membershipFilter.add(entity.getSwiftCode()));
+        //a code another request added since the check above is skipped by the insert and reported like any duplicate
+        List<SwiftCode> inserted = bulkWriter.insertNewInTransaction(entities);
+        if (inserted.size() < entities.size()) {
+            Set<String> insertedCodes = inserted.stream().map(SwiftCode::getSwiftCode).collect(Collectors.toSet());
+            entities.stream()
+                    .map(SwiftCode::getSwiftCode)
+                    .filter(swiftCode -> !insertedCodes.contains(swiftCode))
+                    .forEach(swiftCode -> results[candidates.get(swiftCode)] = itemResult(swiftCode, BulkItemResult.Status.DUPLICATE,
+                            String.format("SwiftCode already exists with swiftCode: '%s'", swiftCode)));
+        }
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new SwiftCodeChangedEvent(inserted.stream()
+                    .map(SwiftCodeChangedEvent::addedChange)
+                    .toList()));
+        }
+        return bulkResponse(results, inserted.size());
+    }
+
+    //endpoint: delete /api/v1/swiftcode/bulk
+    @Transactional
+    public BulkOperationResponse deleteSwiftCodes(List<String> swiftCodes) {
+        BulkItemResult[] results = new BulkItemResult[swiftCodes.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < swiftCodes.size(); i++) {
+            String swiftCode = swiftCodes.get(i);
+            if (swiftCode == null || swiftCode.isBlank()) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.INVALID, "Swift code cannot be empty");
+            } else if (candidates.putIfAbsent(swiftCode, i) != null) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.DUPLICATE, "Swift code repeated in request");
+            }
+        }
+
+        Map<String, String> existing = findStoredCountries(candidates.keySet());
+        List<String> toDelete = new ArrayList<>();
+        candidates.forEach((swiftCode, i) -> {
+            if (writeBuffer.isPending(swiftCode)) {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.PENDING,
+                        "Swift code is still being written, retry once it is persisted");
+            } else if (existing.containsKey(swiftCode)) {
+                toDelete.add(swiftCode);
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.DELETED, "Swift code deleted successfully");
+            } else {
+                results[i] = itemResult(swiftCode, BulkItemResult.Status.NOT_FOUND,
+                        String.format("SwiftCode not found with swiftCode: '%s'", swiftCode));
+            }
+        });
+
+        if (!toDelete.isEmpty()) {
+            bulkWriter.deleteInTransaction(toDelete);
+            eventPublisher.publishEvent(new SwiftCodeChangedEvent(toDelete.stream()
+                    .map(swiftCode -> SwiftCodeChangedEvent.deletedChange(swiftCode, existing.get(swiftCode)))
+                    .toList()));
+        }
+        return bulkResponse(results, toDelete.size());
+    }
+
+    //the entity ends up in the read models, so it shares repeated values like a loaded one
+    private SwiftCode toEntity(BranchDTO branchDTO) {
+        return SwiftCodeDictionary.encode(SwiftCode.builder()
                 .swiftCode(branchDTO.getSwiftCode())
                 .bankName(branchDTO.getBankName())
                 .address(branchDTO.getAddress())
                 .countryISO2(branchDTO.getCountryISO2().toUpperCase())
                 .country(branchDTO.getCountryName().toUpperCase())
                 .isHeadquarter(branchDTO.getIsHeadquarter())
+                .build());
+    }
+
+    private boolean isStored(String swiftCode) {
+        if (!membershipFilter.mightContain(swiftCode)) return false;
+
+        SwiftCodeSnapshot snapshot = index.current();
+        return snapshot != null ? snapshot.findBySwiftCode(swiftCode) != null : repository.existsBySwiftCode(swiftCode);
+    }
+
+    private Set<String> findExistingSwiftCodes(Set<String> swiftCodes) {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : chunks(new ArrayList<>(swiftCodes))) {
+            existing.addAll(repository.findExistingSwiftCodes(chunk));
+        }
+        return existing;
+    }
+
+    //code to iso2 of the stored rows, deletes pass the country on to the listeners
+    private Map<String, String> findStoredCountries(Set<String> swiftCodes) {
+        Map<String, String> stored = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(swiftCodes))) {
+            repository.findRowsBySwiftCodeIn(chunk).forEach(row -> stored.put(row.swiftCode(), row.countryISO2()));
+        }
+        return stored;
+    }
+
+    private static String violationMessage(Set<ConstraintViolation<BranchDTO>> violations) {
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("; "));
+    }
+
+    private static BulkItemResult itemResult(String swiftCode, BulkItemResult.Status status, String message) {
+        return BulkItemResult.builder()
+                .swiftCode(swiftCode)
+                .status(status)
+                .message(message)
                 .build();
+    }
 
-        repository.save(swiftCodeEntity);
-        return "Swift code added successfully";
+    private static BulkOperationResponse bulkResponse(BulkItemResult[] results, int succeeded) {
+        return BulkOperationResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    //iso2 is stored upper case, matching on the normalized value keeps the country index usable
+    private static String normalizeCountry(String countryISO2) {
+        return countryISO2.toUpperCase(Locale.ROOT);
+    }
+
+    private static String bankPrefix(String swiftCode) {
+        return swiftCode.length() < 8 ? swiftCode : swiftCode.substring(0, 8);
+    }
+
+    //keeps IN lists well below the driver's bind parameter limit
+    private static List<List<String>> chunks(List<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
     }
 }
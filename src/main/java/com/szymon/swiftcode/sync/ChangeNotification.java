@@ -0,0 +1,13 @@
+package com.szymon.swiftcode.sync;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+
+import java.util.List;
+
+//payload of one NOTIFY on the change channel. entities are not included, postgres caps a payload at 8000 bytes
+//version comes from a database sequence, so it orders writes across all instances
+public record ChangeNotification(String origin, long version, boolean reload, List<ChangedCode> changes) {
+
+    public record ChangedCode(SwiftCodeChangedEvent.Operation operation, String swiftCode, String countryISO2) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.szymon.swiftcode.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//replays the writes of other instances as local events, so the snapshot, filter and caches follow them.
+//the connection is opened outside the pool, it stays busy for the lifetime of the application
+@Slf4j
+@Component
+public class ChangeNotificationListener implements SmartLifecycle {
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final ChangeNotificationPublisher notificationPublisher;
+    private final SwiftCodeRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Counter received;
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    @Value("${spring.datasource.url:}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public ChangeNotificationListener(ChangeNotificationPublisher notificationPublisher, SwiftCodeRepository repository,
+                                      ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry) {
+        this.notificationPublisher = notificationPublisher;
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.received = meterRegistry.counter("swift.change.feed.notifications", "direction", "received");
+        Gauge.builder("swift.change.feed.version", lastVersion, AtomicLong::get)
+                .description("Highest change version received from another instance")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!notificationPublisher.isActive()) return;
+
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("swift-change-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread == null) return;
+
+        try {
+            thread.join(2L * POLL_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean listenedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + ChangeNotificationPublisher.CHANNEL);
+                }
+                //whatever was sent while the connection was down is lost, start over from the table
+                if (listenedBefore) {
+                    log.info("Listening for changes again, rebuilding read models");
+                    eventPublisher.publishEvent(DatasetReloadedEvent.fromOtherInstance());
+                }
+                listenedBefore = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    for (PGNotification notification : pgConnection.getNotifications(POLL_TIMEOUT_MS)) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) return;
+                log.warn("Change listener connection lost, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                sleep();
+            }
+        }
+    }
+
+    void apply(String payload) {
+        ChangeNotification notification;
+        try {
+            notification = objectMapper.readValue(payload, ChangeNotification.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed change notification: {}", e.getMessage());
+            return;
+        }
+        //own writes were applied when they committed
+        if (notification.origin().equals(notificationPublisher.origin())) return;
+
+        received.increment();
+        lastVersion.accumulateAndGet(notification.version(), Math::max);
+        if (notification.reload()) {
+            eventPublisher.publishEvent(DatasetReloadedEvent.fromOtherInstance());
+        } else {
+            eventPublisher.publishEvent(SwiftCodeChangedEvent.fromOtherInstance(toChanges(notification.changes())));
+        }
+    }
+
+    //added rows are read back so the snapshot gets full entities, a row already gone again counts as deleted
+    private List<SwiftCodeChangedEvent.Change> toChanges(List<ChangeNotification.ChangedCode> changes) {
+        List<String> added = changes.stream()
+                .filter(change -> change.operation() == SwiftCodeChangedEvent.Operation.ADDED)
+                .map(ChangeNotification.ChangedCode::swiftCode)
+                .toList();
+        Map<String, SwiftCode> entities = added.isEmpty() ? Map.of() : repository.findBySwiftCodeIn(added).stream()
+                .collect(Collectors.toMap(SwiftCode::getSwiftCode, Function.identity()));
+
+        return changes.stream()
+                .map(change -> {
+                    SwiftCode entity = entities.get(change.swiftCode());
+                    return change.operation() == SwiftCodeChangedEvent.Operation.ADDED && entity != null
+                            ? SwiftCodeChangedEvent.addedChange(entity)
+                            : SwiftCodeChangedEvent.deletedChange(change.swiftCode(), change.countryISO2());
+                })
+                .toList();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.szymon.swiftcode.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+
+//tells the other instances about local writes through postgres NOTIFY
+@Component
+public class ChangeNotificationPublisher {
+    static final String CHANNEL = "swift_code_changes";
+    //about 60 bytes per code keeps a notification well below the payload limit
+    static final int CHANGES_PER_NOTIFICATION = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter sent;
+
+    //random per process, a listener skips the notifications of its own instance
+    private final String origin = UUID.randomUUID().toString();
+
+    @Value("${swift.change-feed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl;
+
+    public ChangeNotificationPublisher(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.sent = meterRegistry.counter("swift.change.feed.notifications", "direction", "sent");
+    }
+
+    public String origin() {
+        return origin;
+    }
+
+    //LISTEN/NOTIFY only exists on postgres, other databases (h2 in tests) run as a single instance
+    public boolean isActive() {
+        return enabled && datasourceUrl.startsWith("jdbc:postgresql:");
+    }
+
+    @PostConstruct
+    void createVersionSequence() {
+        if (!isActive()) return;
+        jdbcTemplate.execute("create sequence if not exists swift_code_change_version");
+    }
+
+    //sent inside the writing transaction, postgres delivers it on commit and drops it on rollback
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSwiftCodeChanged(SwiftCodeChangedEvent event) {
+        if (!isActive() || event.remote()) return;
+
+        long version = nextVersion();
+        List<ChangeNotification.ChangedCode> changes = event.changes().stream()
+                .map(change -> new ChangeNotification.ChangedCode(change.operation(), change.swiftCode(), change.countryISO2()))
+                .toList();
+        for (int from = 0; from < changes.size(); from += CHANGES_PER_NOTIFICATION) {
+            List<ChangeNotification.ChangedCode> chunk = changes.subList(from, Math.min(from + CHANGES_PER_NOTIFICATION, changes.size()));
+            send(new ChangeNotification(origin, version, false, chunk));
+        }
+    }
+
+    //a startup that found the data in place changed nothing, the others don't need to rebuild
+    @EventListener
+    public void onDatasetReloaded(DatasetReloadedEvent event) {
+        if (!isActive() || event.remote() || !event.tableChanged()) return;
+
+        send(new ChangeNotification(origin, nextVersion(), true, List.of()));
+    }
+
+    private long nextVersion() {
+        return jdbcTemplate.queryForObject("select nextval('swift_code_change_version')", Long.class);
+    }
+
+    private void send(ChangeNotification notification) {
+        try {
+            jdbcTemplate.queryForList("select pg_notify(?, ?)", CHANNEL, objectMapper.writeValueAsString(notification));
+            sent.increment();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change notification: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.szymon.swiftcode.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+//hands out one shared instance per distinct value, so rows repeating a value hold a reference instead of a copy.
+//values are held weakly: one that no row references any more, e.g. after a reload renamed it, drops out on the
+//next gc, so the dictionary follows the live dataset and needs no cap
+public final class StringDictionary {
+    //WeakHashMap isn't thread-safe, rows are encoded from many threads, so each stripe is locked on its own
+    private static final int STRIPES = 64;
+
+    //the key is the shared instance itself, the value only a weak reference back to it
+    private final Map<String, WeakReference<String>>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StringDictionary() {
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    public String encode(String value) {
+        if (value == null) return null;
+
+        Map<String, WeakReference<String>> stripe = stripes[stripe(value)];
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String shared = reference == null ? null : reference.get();
+            if (shared != null) return shared;
+
+            stripe.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    //values still referenced somewhere, plus any collected ones not yet expunged
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static int stripe(String value) {
+        int hash = value.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
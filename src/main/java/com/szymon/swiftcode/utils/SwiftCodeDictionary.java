@@ -0,0 +1,48 @@
+package com.szymon.swiftcode.utils;
+
+import com.szymon.swiftcode.model.SwiftCode;
+
+import java.util.stream.Stream;
+
+//dictionaries of the columns that repeat across rows: a handful of countries and time zones, and bank name,
+//bank prefix and city shared by a headquarter and its branches. swift code and address are unique, they stay as read.
+//entries are weak, so values of deleted or reloaded rows don't outlive them
+public final class SwiftCodeDictionary {
+    private static final StringDictionary COUNTRY_ISO2 = new StringDictionary();
+    private static final StringDictionary COUNTRY = new StringDictionary();
+    private static final StringDictionary TIME_ZONE = new StringDictionary();
+    private static final StringDictionary BANK_NAME = new StringDictionary();
+    private static final StringDictionary BANK_PREFIX = new StringDictionary();
+    private static final StringDictionary CITY = new StringDictionary();
+
+    private SwiftCodeDictionary() {
+    }
+
+    //replaces the repeated values of the row by their shared instances, equal values so nothing is marked dirty
+    public static SwiftCode encode(SwiftCode swiftCode) {
+        swiftCode.setCountryISO2(COUNTRY_ISO2.encode(swiftCode.getCountryISO2()));
+        swiftCode.setCountry(COUNTRY.encode(swiftCode.getCountry()));
+        swiftCode.setTimeZone(TIME_ZONE.encode(swiftCode.getTimeZone()));
+        swiftCode.setBankName(BANK_NAME.encode(swiftCode.getBankName()));
+        swiftCode.setBankPrefix(BANK_PREFIX.encode(swiftCode.getBankPrefix()));
+        swiftCode.setCity(CITY.encode(swiftCode.getCity()));
+        return swiftCode;
+    }
+
+    public static String countryISO2(String countryISO2) {
+        return COUNTRY_ISO2.encode(countryISO2);
+    }
+
+    public static String country(String country) {
+        return COUNTRY.encode(country);
+    }
+
+    public static String bankName(String bankName) {
+        return BANK_NAME.encode(bankName);
+    }
+
+    //distinct values held over all columns
+    public static int size() {
+        return Stream.of(COUNTRY_ISO2, COUNTRY, TIME_ZONE, BANK_NAME, BANK_PREFIX, CITY).mapToInt(StringDictionary::size).sum();
+    }
+}
@@ -0,0 +1,38 @@
+package com.szymon.swiftcode.utils;
+
+import com.szymon.swiftcode.model.SwiftCode;
+
+//64-bit FNV-1a over every stored column except the id, used to detect changed rows without comparing all fields
+public final class SwiftCodeFingerprint {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private SwiftCodeFingerprint() {
+    }
+
+    public static long of(SwiftCode swiftCode) {
+        long hash = OFFSET_BASIS;
+        hash = mix(hash, swiftCode.getSwiftCode());
+        hash = mix(hash, swiftCode.getCountryISO2());
+        hash = mix(hash, swiftCode.isHeadquarter() ? "1" : "0");
+        hash = mix(hash, swiftCode.getBankName());
+        hash = mix(hash, swiftCode.getAddress());
+        hash = mix(hash, swiftCode.getCity());
+        hash = mix(hash, swiftCode.getCountry());
+        hash = mix(hash, swiftCode.getTimeZone());
+        return hash;
+    }
+
+    //null and empty must differ, and a separator keeps ("ab", "c") apart from ("a", "bc")
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xff) * PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * PRIME;
+            hash = (hash ^ (c >>> 8)) * PRIME;
+        }
+        return (hash ^ 0xfe) * PRIME;
+    }
+}
@@ -1,106 +1,129 @@
 package com.szymon.swiftcode.utils;
 
 import com.szymon.swiftcode.model.SwiftCode;
-import com.szymon.swiftcode.repository.SwiftCodeRepository;
-import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.springframework.stereotype.Component;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
-import java.io.FileInputStream;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class SwiftCodeParser {
-
-    private final SwiftCodeRepository repository;
-
-    public void parseSaveExcel(FileInputStream inputStream) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook(inputStream);
-
-        List<SwiftCode> readData = new ArrayList<>();
-
-        Sheet sheet = workbook.getSheetAt(0);
-        Iterator<Row> rowIterator = sheet.iterator();
-
-        //skip header
-        if(rowIterator.hasNext()) {
-            rowIterator.next();
-        }
-
-        while(rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-            if (row == null || isRowEmpty(row)) continue;
-
-            try {
-                String countryISO2 = Objects.requireNonNull(getCellValue(row, 0)).toUpperCase();
-                String swiftCode = getCellValue(row, 1);
-                String codeType = getCellValue(row, 2);
-                String bankName = getCellValue(row, 3);
-                String address = getCellValue(row, 4);
-                String city = getCellValue(row, 5);
-                String country = Objects.requireNonNull(getCellValue(row, 6)).toUpperCase();
-                String timeZone = getCellValue(row, 7);
-
-                if (swiftCode == null || swiftCode.isEmpty() || Objects.requireNonNull(swiftCode).length() < 8 ) continue;
-
-                boolean isHeadquarter = swiftCode.endsWith("XXX");
-
-
-                SwiftCode swiftEntity = SwiftCode.builder()
-                        .swiftCode(swiftCode)
-                        .isHeadquarter(isHeadquarter)
-                        .countryISO2(countryISO2)
-                        .bankName(bankName)
-                        .address(address)
-                        .city(city)
-                        .country(country)
-                        .timeZone(timeZone)
-                        .build();
-
-                readData.add(swiftEntity);
-            } catch (Exception e) {
-                System.out.println("Error parsing row: " + e.getMessage());
+    public static final int COLUMN_COUNT = 8;
+
+    //emits raw trimmed cell values of every non-empty data row of the first sheet, header is skipped.
+    //cells come as excel displays them, so a numeric cell (e.g. a postal code typed as a number) is read as its
+    //formatted text instead of being dropped
+    public void streamRows(File file, Consumer<String[]> rowConsumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader xmlReader = XMLHelper.newXMLReader();
+                xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, null, sharedStrings, new RowCollector(rowConsumer), new DataFormatter(), false));
+                xmlReader.parse(new InputSource(sheet));
             }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot read excel file: " + e.getMessage(), e);
         }
-        repository.saveAll(readData);
-        workbook.close();
     }
 
-    private String getCellValue(Row row, int col) {
-        Cell cell = row.getCell(col);
-        String cellValue;
+    //returns null when the row should be skipped
+    public SwiftCode toSwiftCode(String[] cells) {
         try {
-            cellValue = cell.getStringCellValue().trim();
+            String countryISO2 = Objects.requireNonNull(cells[0]).toUpperCase();
+            String swiftCode = cells[1];
+            String bankName = cells[3];
+            String address = cells[4];
+            String city = cells[5];
+            String country = Objects.requireNonNull(cells[6]).toUpperCase();
+            String timeZone = cells[7];
+
+            if (swiftCode == null || swiftCode.isEmpty() || swiftCode.length() < 8) return null;
+
+            boolean isHeadquarter = swiftCode.endsWith("XXX");
+
+            return SwiftCodeDictionary.encode(SwiftCode.builder()
+                    .swiftCode(swiftCode)
+                    .isHeadquarter(isHeadquarter)
+                    .countryISO2(countryISO2)
+                    .bankName(bankName)
+                    .address(address)
+                    .city(city)
+                    .country(country)
+                    .timeZone(timeZone)
+                    .build());
         } catch (Exception e) {
+            log.warn("Error parsing row: {}", e.getMessage());
             return null;
         }
+    }
 
-        if (cellValue.isEmpty()) {
-            return null;
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<String[]> rowConsumer;
+        private boolean headerSkipped;
+        private String[] cells;
+        private boolean empty;
+
+        RowCollector(Consumer<String[]> rowConsumer) {
+            this.rowConsumer = rowConsumer;
         }
-        return cellValue;
 
-    }
+        @Override
+        public void startRow(int rowNum) {
+            cells = new String[COLUMN_COUNT];
+            empty = true;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) return;
 
-    private boolean isRowEmpty(Row row) {
-        if (row == null) return true;
+            int col = new CellReference(cellReference).getCol();
+            if (col >= COLUMN_COUNT) return;
 
-        for (int c = 0; c < 8; c++) {
-            String value = getCellValue(row, c);
-            if (value != null && !value.isBlank()) {
-                return false;
+            String value = formattedValue.trim();
+            if (value.isEmpty()) return;
+
+            cells[col] = value;
+            empty = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerSkipped) {
+                headerSkipped = true;
+                return;
+            }
+            if (!empty) {
+                rowConsumer.accept(cells);
             }
         }
-        return true;
     }
-
-
 }
@@ -0,0 +1,233 @@
+package com.szymon.swiftcode.writebehind;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.exceptions.DuplicateResourceException;
+import com.szymon.swiftcode.exceptions.ServiceUnavailableException;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//accepted adds wait here and are inserted in batches, one transaction per batch.
+//held in memory only: whatever is still queued when the process dies is lost, a clean shutdown flushes it first
+@Slf4j
+@Component
+public class SwiftCodeWriteBuffer implements SmartLifecycle {
+    private static final int MAX_REMEMBERED_FAILURES = 1000;
+    //put by stop(), wakes the flusher up so it drains without waiting for the interval
+    private static final SwiftCode STOP = new SwiftCode();
+
+    private final SwiftCodeBulkWriter bulkWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter persisted;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    //pending holds what is queued or being flushed, the status endpoint and duplicate checks read it
+    private final Map<String, SwiftCode> pending = new ConcurrentHashMap<>();
+    private final Map<String, String> failures = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_REMEMBERED_FAILURES;
+        }
+    });
+    private final BlockingQueue<SwiftCode> queue = new LinkedBlockingQueue<>();
+    //capacity bounds everything pending, rows taken off the queue by the flusher included
+    private Semaphore permits;
+
+    @Value("${swift.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${swift.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${swift.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${swift.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public SwiftCodeWriteBuffer(SwiftCodeBulkWriter bulkWriter, PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.bulkWriter = bulkWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.persisted = meterRegistry.counter("swift.write.behind.rows", "outcome", "persisted");
+        this.failed = meterRegistry.counter("swift.write.behind.rows", "outcome", "failed");
+        this.flushTimer = Timer.builder("swift.write.behind.flush")
+                .description("Time to insert one batch of buffered adds")
+                .register(meterRegistry);
+        Gauge.builder("swift.write.behind.pending", pending, Map::size)
+                .description("Accepted adds not yet committed")
+                .register(meterRegistry);
+    }
+
+    //false when write-behind is off or shutting down, adds are written synchronously then
+    public boolean isAccepting() {
+        return enabled && running;
+    }
+
+    public void enqueue(SwiftCode swiftCode) {
+        if (!isAccepting()) {
+            throw new ServiceUnavailableException("Write buffer is not accepting writes");
+        }
+        if (!permits.tryAcquire()) {
+            throw new ServiceUnavailableException("Write buffer is full, retry later");
+        }
+        if (pending.putIfAbsent(swiftCode.getSwiftCode(), swiftCode) != null) {
+            permits.release();
+            throw new DuplicateResourceException("SwiftCode", "swiftCode", swiftCode.getSwiftCode());
+        }
+        failures.remove(swiftCode.getSwiftCode());
+        queue.add(swiftCode);
+    }
+
+    public boolean isPending(String swiftCode) {
+        return pending.containsKey(swiftCode);
+    }
+
+    //null unless the last buffered add of this code failed
+    public String failure(String swiftCode) {
+        return failures.get(swiftCode);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+
+        permits = new Semaphore(capacity);
+        running = true;
+        flusher = Thread.ofPlatform().name("swift-write-behind").start(this::flushLoop);
+    }
+
+    //new adds are refused first, then the flusher drains what was accepted before it exits
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher == null) return;
+
+        queue.add(STOP);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //stops after the web server, so no request can still be adding while the queue is drained
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    //a batch is flushed when it is full or flushIntervalMs after its first row arrived, whichever comes first
+    private void flushLoop() {
+        List<SwiftCode> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                SwiftCode next = queue.take();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (next != null) {
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                    if (batch.size() == batchSize) break;
+                    next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+                flushAndClear(batch);
+            }
+            //adds that raced with stop() are still written
+            while (queue.drainTo(batch, batchSize) > 0) {
+                flushAndClear(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Write-behind flusher interrupted, {} accepted adds not written", pending.size());
+        }
+    }
+
+    private void flushAndClear(List<SwiftCode> batch) {
+        if (batch.isEmpty()) return;
+
+        List<SwiftCode> flushed = List.copyOf(batch);
+        flushTimer.record(() -> flush(flushed));
+        batch.clear();
+    }
+
+    void flush(List<SwiftCode> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bulkWriter.insertInTransaction(batch);
+                eventPublisher.publishEvent(new SwiftCodeChangedEvent(batch.stream()
+                        .map(SwiftCodeChangedEvent::addedChange)
+                        .toList()));
+            });
+            persisted.increment(batch.size());
+            batch.forEach(this::done);
+        } catch (DataAccessException e) {
+            if (batch.size() > 1) {
+                //one bad row rolls back the whole batch, the rows are retried one by one to find it
+                batch.forEach(swiftCode -> flush(List.of(swiftCode)));
+                return;
+            }
+            SwiftCode swiftCode = batch.getFirst();
+            String message = e instanceof DuplicateKeyException
+                    ? String.format("SwiftCode already exists with swiftCode: '%s'", swiftCode.getSwiftCode())
+                    : "Could not write swift code: " + e.getMostSpecificCause().getMessage();
+            fail(swiftCode, message);
+        } catch (RuntimeException e) {
+            //e.g. no connection for the transaction: retrying row by row would fail the same way, and an exception
+            //escaping here would end the only flusher thread with every accepted code left pending
+            String message = "Could not write swift code: " + e.getMessage();
+            log.warn("Buffered batch of {} rows failed", batch.size(), e);
+            batch.forEach(swiftCode -> fail(swiftCode, message));
+        }
+    }
+
+    private void fail(SwiftCode swiftCode, String message) {
+        log.warn("Buffered add of {} failed: {}", swiftCode.getSwiftCode(), message);
+        failures.put(swiftCode.getSwiftCode(), message);
+        failed.increment();
+        done(swiftCode);
+    }
+
+    private void done(SwiftCode swiftCode) {
+        if (pending.remove(swiftCode.getSwiftCode(), swiftCode) && permits != null) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.szymon.swiftcode.cache;
+
+import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void execute_shouldRunLoaderOnce_forConcurrentCallsWithSameKey() throws Exception {
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return "PKOPPLPWXXX";
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("PKOPPLPWXXX", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS - 1, singleFlight.sharedCalls());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void execute_shouldHandTheLoaderExceptionToEveryWaitingCaller() throws Exception {
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new ResourceNotFoundException("SwiftCode", "swiftCode", "NOTEXIST");
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, e.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void execute_shouldRunAgain_onceThePreviousRunIsOver() {
+        singleFlight.execute("key", () -> "first");
+
+        assertEquals("second", singleFlight.execute("key", () -> "second"));
+        assertEquals(0, singleFlight.sharedCalls());
+    }
+
+    //the leader blocks in the loader until every other caller is waiting on its result
+    private List<Future<String>> callConcurrently(Supplier<String> loader) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("code:PKOPPLPWXXX", loader)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (singleFlight.sharedCalls() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
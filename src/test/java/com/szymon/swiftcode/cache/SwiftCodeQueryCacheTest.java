@@ -0,0 +1,134 @@
+package com.szymon.swiftcode.cache;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class SwiftCodeQueryCacheTest {
+
+    @Configuration
+    @Import({SwiftCodeQueryCacheConfig.class, SwiftCodeQueryCacheInvalidator.class})
+    static class Config {
+        //what boot registers, for the duration in swift.query-cache.ttl
+        @Bean
+        static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+
+        @Bean
+        SwiftCodeRepository swiftCodeRepository() {
+            return mock(SwiftCodeRepository.class);
+        }
+    }
+
+    @Autowired
+    private SwiftCodeRepository repository;
+
+    @Autowired
+    private SwiftCodeQueryCacheInvalidator invalidator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private SwiftCodeRepository target;
+
+    private final SwiftCodeRow headquarter = new SwiftCodeRow("PKOPPLPWXXX", "PKO", null, "PL", "POLAND", true);
+    private final SwiftCodeRow branch = new SwiftCodeRow("PKOPPLPW001", "PKO", null, "PL", "POLAND", false);
+    private final SwiftCodeRow otherBank = new SwiftCodeRow("BPHKPLPKXXX", "BPH", null, "PL", "POLAND", true);
+
+    @BeforeEach
+    void setUp() {
+        invalidator.onDatasetReloaded();
+        //the bean is the caching proxy, stubbing and verifying go to the mock behind it
+        target = AopTestUtils.getUltimateTargetObject(repository);
+        reset(target);
+        when(target.findDetailsRows("PKOPPLPWXXX", "PKOPPLPW")).thenReturn(List.of(branch, headquarter));
+        when(target.findDetailsRows("PKOPPLPW001", "PKOPPLPW")).thenReturn(List.of(branch));
+        when(target.findDetailsRows("BPHKPLPKXXX", "BPHKPLPK")).thenReturn(List.of(otherBank));
+        when(target.findByCountryISO2(anyString())).thenReturn(List.of());
+    }
+
+    @Test
+    void reads_shouldHitDatabaseOnce() {
+        repository.findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        repository.findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        repository.findByCountryISO2("PL");
+        repository.findByCountryISO2("PL");
+
+        verify(target, times(1)).findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        verify(target, times(1)).findByCountryISO2("PL");
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldEvictBranchItsHeadquarterAndCountry() {
+        warmUp();
+
+        invalidator.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPW001", "PL"));
+        warmUp();
+
+        verify(target, times(2)).findDetailsRows("PKOPPLPW001", "PKOPPLPW");
+        verify(target, times(2)).findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        verify(target, times(2)).findByCountryISO2("PL");
+        //untouched entries stay cached
+        verify(target, times(1)).findDetailsRows("BPHKPLPKXXX", "BPHKPLPK");
+        verify(target, times(1)).findByCountryISO2("DE");
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldEvictCountryTheDeletedRowBelongedTo() {
+        warmUp();
+
+        //not cached and its code doesn't spell the country, only the change knows it
+        invalidator.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("ABCDXXYYZZZ", "DE"));
+        warmUp();
+
+        verify(target, times(2)).findByCountryISO2("DE");
+        verify(target, times(1)).findByCountryISO2("PL");
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldKeepHeadquarterEntryWhenAnotherHeadquarterIsAdded() {
+        warmUp();
+
+        SwiftCode added = SwiftCode.builder().swiftCode("INGBPLPWXXX").countryISO2("PL").isHeadquarter(true).build();
+        invalidator.onSwiftCodeChanged(SwiftCodeChangedEvent.added(added));
+        warmUp();
+
+        verify(target, times(1)).findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        verify(target, times(1)).findDetailsRows("PKOPPLPW001", "PKOPPLPW");
+        verify(target, times(2)).findByCountryISO2("PL");
+    }
+
+    @Test
+    void cacheManager_shouldExposeFixedCaches() {
+        assertEquals(Set.of(SwiftCodeQueryCacheConfig.SWIFT_CODE_DETAILS, SwiftCodeQueryCacheConfig.COUNTRIES),
+                Set.copyOf(cacheManager.getCacheNames()));
+    }
+
+    private void warmUp() {
+        repository.findDetailsRows("PKOPPLPWXXX", "PKOPPLPW");
+        repository.findDetailsRows("PKOPPLPW001", "PKOPPLPW");
+        repository.findDetailsRows("BPHKPLPKXXX", "BPHKPLPK");
+        repository.findByCountryISO2("PL");
+        repository.findByCountryISO2("DE");
+    }
+}
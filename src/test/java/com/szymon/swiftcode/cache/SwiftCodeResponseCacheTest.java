@@ -0,0 +1,103 @@
+package com.szymon.swiftcode.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.dto.BranchDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwiftCodeResponseCacheTest {
+
+    private SwiftCodeResponseCache cache;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SwiftCodeResponseCache(new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "gzipMinSize", 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_shouldServeStoredBytesUntilDatasetChanges() {
+        CachedResponse first = cache.get("code:PKOPPLPWXXX", this::load);
+        CachedResponse second = cache.get("code:PKOPPLPWXXX", this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("swift.response.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("swift.response.cache.requests").tag("result", "miss").counter().count());
+
+        cache.invalidate();
+        CachedResponse third = cache.get("code:PKOPPLPWXXX", this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(first.etag(), third.etag());
+        assertFalse(third.hasGzip());
+    }
+
+    @Test
+    void get_shouldPrecompressLargeBodies() throws Exception {
+        ReflectionTestUtils.setField(cache, "gzipMinSize", 10);
+
+        CachedResponse response = cache.get("code:PKOPPLPWXXX", this::load);
+
+        assertTrue(response.hasGzip());
+        assertNotEquals(response.etag(), response.gzipEtag());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.gzipBody()))) {
+            assertArrayEquals(response.body(), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void get_shouldNotStore_whenDisabled() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        cache.get("code:PKOPPLPWXXX", this::load);
+        cache.get("code:PKOPPLPWXXX", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_shouldNotShareALoadStartedBeforeTheDatasetChanged() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread slowReader = Thread.ofPlatform().start(() -> cache.get("code:PKOPPLPWXXX", () -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load();
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.invalidate();
+        CachedResponse fresh = cache.get("code:PKOPPLPWXXX", this::load);
+        release.countDown();
+        slowReader.join(5000);
+
+        assertEquals(1, fresh.version());
+        assertEquals(2, loads.get());
+        assertEquals(0, meterRegistry.get("swift.response.cache.requests").tag("result", "shared").functionCounter().count());
+    }
+
+    private Object load() {
+        loads.incrementAndGet();
+        return BranchDTO.builder().swiftCode("PKOPPLPWXXX").bankName("PKO Bank Polski").isHeadquarter(true).build();
+    }
+}
@@ -1,29 +1,51 @@
 package com.szymon.swiftcode.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.cache.SwiftCodeResponseCache;
 import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkItemResult;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
 import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.CountryStatisticsDTO;
+import com.szymon.swiftcode.dto.CountrySwiftCodesPageDTO;
 import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
+import com.szymon.swiftcode.dto.SwiftCodeSearchResultDTO;
+import com.szymon.swiftcode.dto.WriteStatusDTO;
 import com.szymon.swiftcode.exceptions.DuplicateResourceException;
 import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.exceptions.ServiceUnavailableException;
+import com.szymon.swiftcode.exceptions.WritePendingException;
 import com.szymon.swiftcode.service.SwiftCodeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(SwiftController.class)
+@WebMvcTest(value = SwiftController.class, properties = "swift.bulk.chunk-size=2")
+@Import({SwiftCodeResponseCache.class, SimpleMeterRegistry.class})
 class SwiftControllerTest {
 
     @Autowired
@@ -35,6 +57,14 @@ class SwiftControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SwiftCodeResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidate();
+    }
+
     //addSwift
     @Test
     void addSwift_shouldReturnValidationErrors_whenRequestBodyIsEmpty() throws Exception {
@@ -204,6 +234,80 @@ class SwiftControllerTest {
                         .value("SwiftCode not found with swiftCode: 'INVALID123'"));
     }
 
+    @Test
+    void searchSwiftCodes_shouldReturnRankedResults() throws Exception {
+        SwiftCodeSearchResultDTO result = SwiftCodeSearchResultDTO.builder()
+                .swiftCode("PKOPPLPWXXX").bankName("PKO BANK POLSKI S.A.").city("WARSZAWA").isHeadquarter(true).score(1.0)
+                .build();
+        when(swiftCodeService.searchSwiftCodes("pko warszawa", null, 20)).thenReturn(List.of(result));
+
+        mockMvc.perform(get("/v1/swift-codes/search").param("q", "pko warszawa"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].swiftCode").value("PKOPPLPWXXX"))
+                .andExpect(jsonPath("$[0].city").value("WARSZAWA"))
+                .andExpect(jsonPath("$[0].score").value(1.0));
+    }
+
+    @Test
+    void searchSwiftCodes_shouldReturnServiceUnavailable_whenIndexIsNotBuilt() throws Exception {
+        when(swiftCodeService.searchSwiftCodes("pko", "PL", 5))
+                .thenThrow(new ServiceUnavailableException("Search index is not built yet"));
+
+        mockMvc.perform(get("/v1/swift-codes/search").param("q", "pko").param("countryISO2", "PL").param("limit", "5"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Search index is not built yet"));
+    }
+
+    @Test
+    void addSwift_shouldReturnAccepted_whenAsyncIsPreferredAndWriteBehindIsEnabled() throws Exception {
+        BranchDTO dto = BranchDTO.builder()
+                .swiftCode("PKOPPLPWABC")
+                .bankName("PKO Bank Polski")
+                .address("ul. Puławska 15, 02-515 Warsaw")
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .isHeadquarter(false)
+                .build();
+        when(swiftCodeService.acceptsBufferedWrites()).thenReturn(true);
+        when(swiftCodeService.addSwiftCodeBuffered(any())).thenReturn(
+                new WriteStatusDTO("PKOPPLPWABC", WriteStatusDTO.Status.PENDING, "Swift code accepted for writing"));
+
+        mockMvc.perform(post("/v1/swift-codes")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/v1/swift-codes/PKOPPLPWABC/write-status"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(swiftCodeService, never()).addSwiftCode(any());
+    }
+
+    @Test
+    void getWriteStatus_shouldReturnFailure_whenBufferedWriteFailed() throws Exception {
+        when(swiftCodeService.getWriteStatus("PKOPPLPWABC")).thenReturn(new WriteStatusDTO("PKOPPLPWABC",
+                WriteStatusDTO.Status.FAILED, "SwiftCode already exists with swiftCode: 'PKOPPLPWABC'"));
+
+        mockMvc.perform(get("/v1/swift-codes/PKOPPLPWABC/write-status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.message").value("SwiftCode already exists with swiftCode: 'PKOPPLPWABC'"));
+    }
+
+    @Test
+    void getCountryStatistics_shouldReturnCounters() throws Exception {
+        when(swiftCodeService.getCountryStatistics("PL")).thenReturn(CountryStatisticsDTO.builder()
+                .countryISO2("PL").countryName("POLAND").headquarters(10).branches(32).banks(9)
+                .build());
+
+        mockMvc.perform(get("/v1/swift-codes/stats/country/PL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.headquarters").value(10))
+                .andExpect(jsonPath("$.branches").value(32))
+                .andExpect(jsonPath("$.banks").value(9));
+    }
+
     ////
     @Test
     void getSwiftByCountry_shouldReturnSwiftCodes_whenCountryExists() throws Exception {
@@ -225,6 +329,26 @@ class SwiftControllerTest {
                 .andExpect(jsonPath("$.swiftCodes[0].swiftCode").value("PKOPPLPW"));
     }
 
+    @Test
+    void getSwiftByCountry_shouldShareOneCachedListing_whenCasingDiffers() throws Exception {
+        when(swiftCodeService.getSwiftCodesByCountry("PL")).thenReturn(CountryISO2CodeDTO.builder()
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .swiftCodes(List.of(BranchDTO.builder().swiftCode("PKOPPLPWXXX").isHeadquarter(true).build()))
+                .build());
+
+        String etag = mockMvc.perform(get("/v1/swift-codes/country/pl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countryISO2").value("PL"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v1/swift-codes/country/PL"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(swiftCodeService, times(1)).getSwiftCodesByCountry("PL");
+    }
+
     @Test
     void getSwiftByCountry_shouldReturnNotFound_whenCountryDoesNotExist() throws Exception {
         when(swiftCodeService.getSwiftCodesByCountry("XX"))
@@ -278,5 +402,229 @@ class SwiftControllerTest {
                         .value("SwiftCode not found with swiftCode: 'NONEXIST123'"));
     }
 
+    @Test
+    void deleteSwiftCode_shouldReturnConflict_whenBufferedAddIsPending() throws Exception {
+        when(swiftCodeService.deleteSwiftCode("EXAMUSNYXXX"))
+                .thenThrow(new WritePendingException("SwiftCode", "swiftCode", "EXAMUSNYXXX"));
+
+        mockMvc.perform(delete("/v1/swift-codes/EXAMUSNYXXX"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message")
+                        .value("SwiftCode with swiftCode: 'EXAMUSNYXXX' is still being written, retry once it is persisted"));
+    }
+
+    ////
+    @Test
+    void lookupSwiftCodes_shouldReturnFoundAndNotFound() throws Exception {
+        SwiftCodeLookupResponse response = SwiftCodeLookupResponse.builder()
+                .found(List.of(BranchDTO.builder().swiftCode("PKOPPLPW001").isHeadquarter(false).build()))
+                .notFound(List.of("NONEXIST123"))
+                .build();
+
+        when(swiftCodeService.lookupSwiftCodes(List.of("PKOPPLPW001", "NONEXIST123"))).thenReturn(response);
+
+        mockMvc.perform(post("/v1/swift-codes/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"swiftCodes\":[\"PKOPPLPW001\",\"NONEXIST123\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].swiftCode").value("PKOPPLPW001"))
+                .andExpect(jsonPath("$.notFound[0]").value("NONEXIST123"));
+    }
+
+    @Test
+    void lookupSwiftCodes_shouldReturnValidationError_whenListIsEmpty() throws Exception {
+        mockMvc.perform(post("/v1/swift-codes/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"swiftCodes\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.swiftCodes").value("Swift codes cannot be empty"));
+
+        verify(swiftCodeService, never()).lookupSwiftCodes(any());
+    }
+
+    //response cache
+    @Test
+    void getSwiftDetails_shouldReturnNotModified_whenEtagMatches() throws Exception {
+        when(swiftCodeService.getSwiftDetails("PKOPPLPW001"))
+                .thenReturn(BranchDTO.builder().swiftCode("PKOPPLPW001").isHeadquarter(false).build());
+
+        String etag = mockMvc.perform(get("/v1/swift-codes/PKOPPLPW001"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v1/swift-codes/PKOPPLPW001").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(swiftCodeService, times(1)).getSwiftDetails("PKOPPLPW001");
+    }
+
+    @Test
+    void getSwiftByCountry_shouldReturnGzip_whenClientAcceptsIt() throws Exception {
+        List<BranchDTO> branches = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            branches.add(BranchDTO.builder().swiftCode(String.format("PKOPPLPW%03d", i)).bankName("PKO Bank Polski").build());
+        }
+        when(swiftCodeService.getSwiftCodesByCountry("PL")).thenReturn(CountryISO2CodeDTO.builder()
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .swiftCodes(branches)
+                .build());
+
+        mockMvc.perform(get("/v1/swift-codes/country/PL").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+
+        mockMvc.perform(get("/v1/swift-codes/country/PL"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.swiftCodes.length()").value(50));
+
+        verify(swiftCodeService, times(1)).getSwiftCodesByCountry("PL");
+    }
+
+    //country paging and streaming
+    @Test
+    void getSwiftByCountryPage_shouldReturnPageWithCursor() throws Exception {
+        CountrySwiftCodesPageDTO page = CountrySwiftCodesPageDTO.builder()
+                .countryISO2("PL")
+                .swiftCodes(List.of(BranchDTO.builder().swiftCode("PKOPPLPW001").build()))
+                .nextCursor("PKOPPLPW001")
+                .build();
+        when(swiftCodeService.getSwiftCodesByCountryPage("PL", "AAAAPLPWXXX", 1)).thenReturn(page);
+
+        mockMvc.perform(get("/v1/swift-codes/country/PL").param("limit", "1").param("after", "AAAAPLPWXXX"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.swiftCodes[0].swiftCode").value("PKOPPLPW001"))
+                .andExpect(jsonPath("$.nextCursor").value("PKOPPLPW001"));
+
+        verify(swiftCodeService, never()).getSwiftCodesByCountry(any());
+    }
+
+    @Test
+    void getSwiftByCountryPage_shouldReturnBadRequest_whenLimitIsNotANumber() throws Exception {
+        mockMvc.perform(get("/v1/swift-codes/country/PL").param("limit", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value 'abc' for parameter 'limit'"));
+
+        verifyNoInteractions(swiftCodeService);
+    }
+
+    @Test
+    void streamSwiftByCountry_shouldWriteOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BranchDTO> consumer = invocation.getArgument(1);
+            consumer.accept(BranchDTO.builder().swiftCode("PKOPPLPWXXX").build());
+            consumer.accept(BranchDTO.builder().swiftCode("PKOPPLPW001").build());
+            return null;
+        }).when(swiftCodeService).streamSwiftCodesByCountry(eq("PL"), any());
+
+        MvcResult result = mockMvc.perform(get("/v1/swift-codes/country/PL").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("PKOPPLPW001", objectMapper.readValue(lines[1], BranchDTO.class).getSwiftCode());
+    }
+
+    @Test
+    void streamSwiftByCountry_shouldReturnNotFound_beforeStreaming() throws Exception {
+        doThrow(new ResourceNotFoundException("Country", "countryISO2", "XX")).when(swiftCodeService).checkCountryExists("XX");
+
+        mockMvc.perform(get("/v1/swift-codes/country/XX").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Country not found with countryISO2: 'XX'"));
+
+        verify(swiftCodeService, never()).streamSwiftCodesByCountry(any(), any());
+    }
+
+    //bulk
+    @Test
+    void addSwiftBulk_shouldAcceptNdjson() throws Exception {
+        BulkOperationResponse response = BulkOperationResponse.builder()
+                .succeeded(2)
+                .results(List.of(
+                        BulkItemResult.builder().swiftCode("PKOPPLPW001").status(BulkItemResult.Status.CREATED).build(),
+                        BulkItemResult.builder().swiftCode("PKOPPLPW002").status(BulkItemResult.Status.CREATED).build()))
+                .build();
+        when(swiftCodeService.addSwiftCodes(anyList())).thenReturn(response);
+
+        String body = "{\"swiftCode\":\"PKOPPLPW001\",\"countryISO2\":\"PL\"}\n"
+                + "\n"
+                + "{\"swiftCode\":\"PKOPPLPW002\",\"countryISO2\":\"PL\"}\n";
+
+        mockMvc.perform(post("/v1/swift-codes/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[1].status").value("CREATED"));
+
+        verify(swiftCodeService).addSwiftCodes(argThat(items -> items.size() == 2
+                && items.get(1).getSwiftCode().equals("PKOPPLPW002")));
+    }
+
+    @Test
+    void addSwiftBulk_shouldWriteNdjsonInChunks_andCombineTheResults() throws Exception {
+        when(swiftCodeService.addSwiftCodes(anyList())).thenAnswer(invocation -> {
+            List<BranchDTO> chunk = invocation.getArgument(0);
+            return BulkOperationResponse.builder()
+                    .succeeded(chunk.size())
+                    .results(chunk.stream()
+                            .map(item -> BulkItemResult.builder().swiftCode(item.getSwiftCode()).status(BulkItemResult.Status.CREATED).build())
+                            .toList())
+                    .build();
+        });
+
+        String body = "{\"swiftCode\":\"PKOPPLPW001\"}\n{\"swiftCode\":\"PKOPPLPW002\"}\n{\"swiftCode\":\"PKOPPLPW003\"}\n";
+
+        mockMvc.perform(post("/v1/swift-codes/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(3))
+                .andExpect(jsonPath("$.results.length()").value(3))
+                .andExpect(jsonPath("$.results[2].swiftCode").value("PKOPPLPW003"));
+
+        verify(swiftCodeService).addSwiftCodes(argThat(items -> items.size() == 2));
+        verify(swiftCodeService).addSwiftCodes(argThat(items -> items.size() == 1
+                && items.getFirst().getSwiftCode().equals("PKOPPLPW003")));
+    }
+
+    @Test
+    void addSwiftBulk_shouldReturnBadRequest_whenNdjsonLineIsMalformed() throws Exception {
+        mockMvc.perform(post("/v1/swift-codes/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"swiftCode\":\"PKOPPLPW001\"}\n{broken\n"))
+                .andExpect(status().isBadRequest());
 
-}
\ No newline at end of file
+        verify(swiftCodeService, never()).addSwiftCodes(any());
+    }
+
+    @Test
+    void deleteSwiftBulk_shouldAcceptJsonArray() throws Exception {
+        BulkOperationResponse response = BulkOperationResponse.builder()
+                .succeeded(1)
+                .failed(1)
+                .results(List.of(
+                        BulkItemResult.builder().swiftCode("PKOPPLPW001").status(BulkItemResult.Status.DELETED).build(),
+                        BulkItemResult.builder().swiftCode("NONEXIST123").status(BulkItemResult.Status.NOT_FOUND).build()))
+                .build();
+        when(swiftCodeService.deleteSwiftCodes(List.of("PKOPPLPW001", "NONEXIST123"))).thenReturn(response);
+
+        mockMvc.perform(delete("/v1/swift-codes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"PKOPPLPW001\",\"NONEXIST123\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.szymon.swiftcode.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwiftCodeBloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAnInsertedCode() {
+        SwiftCodeBloomFilter filter = SwiftCodeBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put(String.format("BANK%04dXXX", i));
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(String.format("BANK%04dXXX", i)));
+        }
+    }
+
+    @Test
+    void mightContain_shouldStayNearConfiguredFalsePositiveRate() {
+        SwiftCodeBloomFilter filter = SwiftCodeBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put(String.format("BANK%04dXXX", i));
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(String.format("MISS%06dX", i))) falsePositives++;
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void create_shouldRejectInvalidFalsePositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> SwiftCodeBloomFilter.create(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> SwiftCodeBloomFilter.create(100, 1));
+    }
+}
@@ -0,0 +1,70 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwiftCodeIndexTest {
+
+    @Mock
+    private SwiftCodeRepository repository;
+
+    private SwiftCodeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SwiftCodeIndex(repository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    @Test
+    void rebuild_shouldReplayChangesCommittedWhileTheTableWasRead() {
+        SwiftCode headquarter = swiftCode("PKOPPLPWXXX", true);
+        SwiftCode branch = swiftCode("PKOPPLPW001", false);
+        SwiftCode added = swiftCode("PKOPPLPW002", false);
+        when(repository.findAll()).thenReturn(List.of(headquarter, branch));
+        index.rebuild();
+
+        //the read sees neither change, both commit before the rebuilt snapshot is published
+        when(repository.findAll()).thenAnswer(invocation -> {
+            index.onSwiftCodeChanged(SwiftCodeChangedEvent.added(added));
+            index.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPW001", "PL"));
+            return List.of(headquarter, branch);
+        });
+        index.rebuild();
+
+        SwiftCodeSnapshot snapshot = index.current();
+        assertNotNull(snapshot.findBySwiftCode("PKOPPLPW002"));
+        assertNull(snapshot.findBySwiftCode("PKOPPLPW001"));
+        assertEquals(List.of("PKOPPLPW002"), snapshot.findBranches("PKOPPLPW").stream().map(SwiftCodeEntry::swiftCode).toList());
+    }
+
+    @Test
+    void rebuild_shouldKeepThePreviousSnapshot_andStopRecording_whenTheReadFails() {
+        when(repository.findAll()).thenReturn(List.of(swiftCode("PKOPPLPWXXX", true)));
+        index.rebuild();
+        SwiftCodeSnapshot before = index.current();
+
+        when(repository.findAll()).thenThrow(new IllegalStateException("connection lost"));
+        assertThrows(IllegalStateException.class, () -> index.rebuild());
+
+        assertSame(before, index.current());
+        assertNull(ReflectionTestUtils.getField(index, "changedDuringRebuild"));
+    }
+
+    private static SwiftCode swiftCode(String code, boolean headquarter) {
+        return SwiftCode.builder().swiftCode(code).countryISO2("PL").country("POLAND").isHeadquarter(headquarter).build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwiftCodeMembershipFilterTest {
+
+    @Mock
+    private SwiftCodeRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SwiftCodeMembershipFilter membershipFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        membershipFilter = new SwiftCodeMembershipFilter(repository, meterRegistry);
+        ReflectionTestUtils.setField(membershipFilter, "enabled", true);
+        ReflectionTestUtils.setField(membershipFilter, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void mightContain_shouldLetEverythingThroughBeforeFirstBuild() {
+        assertTrue(membershipFilter.mightContain("NOTEXIST"));
+    }
+
+    @Test
+    void rebuild_shouldRuleOutUnknownCodes() {
+        when(repository.findAllSwiftCodes()).thenReturn(List.of("PKOPPLPWXXX", "PKOPPLPW001"));
+
+        membershipFilter.rebuild();
+
+        assertTrue(membershipFilter.mightContain("PKOPPLPWXXX"));
+        assertTrue(membershipFilter.mightContain("PKOPPLPW001"));
+        assertFalse(membershipFilter.mightContain("NOTEXIST"));
+        assertEquals(1, meterRegistry.get("swift.membership.filter.checks").tag("result", "absent").counter().count());
+    }
+
+    @Test
+    void rebuild_shouldDoNothing_WhenDisabled() {
+        ReflectionTestUtils.setField(membershipFilter, "enabled", false);
+
+        membershipFilter.rebuild();
+
+        verifyNoInteractions(repository);
+        assertTrue(membershipFilter.mightContain("NOTEXIST"));
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldAddNewCodesAndKeepDeletedUntilRebuild() {
+        when(repository.findAllSwiftCodes()).thenReturn(List.of("PKOPPLPWXXX"));
+        membershipFilter.rebuild();
+
+        SwiftCode added = SwiftCode.builder().swiftCode("BPHKPLPKXXX").build();
+        membershipFilter.onSwiftCodeChanged(SwiftCodeChangedEvent.added(added));
+        membershipFilter.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPWXXX", "PL"));
+
+        assertTrue(membershipFilter.mightContain("BPHKPLPKXXX"));
+        assertTrue(membershipFilter.mightContain("PKOPPLPWXXX"));
+
+        when(repository.findAllSwiftCodes()).thenReturn(List.of("BPHKPLPKXXX"));
+        membershipFilter.scheduledRebuild();
+
+        assertTrue(membershipFilter.mightContain("BPHKPLPKXXX"));
+        assertFalse(membershipFilter.mightContain("PKOPPLPWXXX"));
+    }
+
+    @Test
+    void rebuild_shouldKeepCodesAddedWhileTableIsRead() {
+        when(repository.findAllSwiftCodes()).thenReturn(List.of("PKOPPLPWXXX"));
+        membershipFilter.rebuild();
+
+        when(repository.findAllSwiftCodes()).thenAnswer(invocation -> {
+            membershipFilter.add("BPHKPLPKXXX");
+            return new ArrayList<>(List.of("PKOPPLPWXXX"));
+        });
+        membershipFilter.rebuild();
+
+        assertTrue(membershipFilter.mightContain("BPHKPLPKXXX"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void add_shouldReachTheRebuiltFilter_whenRebuildSwapsItDuringThePut() {
+        when(repository.findAllSwiftCodes()).thenReturn(List.of("PKOPPLPWXXX"));
+        SwiftCodeBloomFilter old = spy(SwiftCodeBloomFilter.create(100, 0.01));
+        ((AtomicReference<SwiftCodeBloomFilter>) ReflectionTestUtils.getField(membershipFilter, "filter")).set(old);
+
+        //the rebuild reads the table, publishes and stops replaying before the put lands in the old filter
+        doAnswer(invocation -> {
+            membershipFilter.rebuild();
+            return invocation.callRealMethod();
+        }).when(old).put("BPHKPLPKXXX");
+        membershipFilter.add("BPHKPLPKXXX");
+
+        assertTrue(membershipFilter.mightContain("BPHKPLPKXXX"));
+    }
+}
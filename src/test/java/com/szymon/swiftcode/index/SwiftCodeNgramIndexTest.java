@@ -0,0 +1,73 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwiftCodeNgramIndexTest {
+
+    private SwiftCodeNgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = SwiftCodeNgramIndex.of(Stream.of(
+                swiftCode("PKOPPLPWXXX", "PKO BANK POLSKI S.A.", "WARSZAWA", "PULAWSKA 15", "PL", true),
+                swiftCode("PKOPPLPWLDZ", "PKO BANK POLSKI S.A.", "ŁÓDŹ", "PIOTRKOWSKA 173", "PL", false),
+                swiftCode("BREXPLPWXXX", "MBANK S.A.", "WARSZAWA", "PROSTA 18", "PL", true),
+                swiftCode("DEUTDEFFXXX", "DEUTSCHE BANK AG", "FRANKFURT AM MAIN", "TAUNUSANLAGE 12", "DE", true))
+                .map(SwiftCodeEntry::of)
+                .toList());
+    }
+
+    @Test
+    void search_shouldRankCodesMatchingEveryWordFirst() {
+        List<SwiftCodeNgramIndex.Hit> hits = index.search("pko warszawa", null, 10);
+
+        assertEquals("PKOPPLPWXXX", hits.getFirst().swiftCode().swiftCode());
+        assertEquals(2, hits.getFirst().matchedWords());
+        assertTrue(hits.stream().anyMatch(hit -> hit.swiftCode().swiftCode().equals("BREXPLPWXXX")));
+    }
+
+    @Test
+    void search_shouldMatchPrefixesTyposAndDiacritics() {
+        assertEquals("DEUTDEFFXXX", index.search("deutsch", null, 1).getFirst().swiftCode().swiftCode());
+        assertEquals("DEUTDEFFXXX", index.search("frankfrut", null, 1).getFirst().swiftCode().swiftCode());
+        assertEquals("PKOPPLPWLDZ", index.search("lodz", null, 1).getFirst().swiftCode().swiftCode());
+        assertTrue(index.search("zzzzzz", null, 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldFilterByCountryAndApplyLimit() {
+        List<SwiftCodeNgramIndex.Hit> hits = index.search("bank", "de", 10);
+        assertEquals(List.of("DEUTDEFFXXX"), hits.stream().map(hit -> hit.swiftCode().swiftCode()).toList());
+
+        assertEquals(2, index.search("bank", null, 2).size());
+    }
+
+    @Test
+    void apply_shouldAddAndRemoveCodesWithoutTouchingTheOriginal() {
+        SwiftCode added = swiftCode("INGBPLPWXXX", "ING BANK SLASKI", "KATOWICE", "SOKOLSKA 34", "PL", true);
+
+        SwiftCodeNgramIndex updated = index
+                .apply(List.of(SwiftCodeChangedEvent.addedChange(added)))
+                .apply(List.of(SwiftCodeChangedEvent.deletedChange("BREXPLPWXXX", "PL")));
+
+        assertEquals("INGBPLPWXXX", updated.search("katowice", null, 1).getFirst().swiftCode().swiftCode());
+        assertTrue(updated.search("mbank", null, 10).stream()
+                .noneMatch(hit -> hit.swiftCode().swiftCode().equals("BREXPLPWXXX")));
+        assertEquals(4, updated.size());
+        assertTrue(index.search("katowice", null, 10).isEmpty());
+    }
+
+    private static SwiftCode swiftCode(String code, String bankName, String city, String address, String iso2,
+                                       boolean headquarter) {
+        return SwiftCode.builder().swiftCode(code).bankName(bankName).city(city).address(address)
+                .countryISO2(iso2).isHeadquarter(headquarter).build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwiftCodeSnapshotTest {
+
+    private SwiftCode headquarter;
+    private SwiftCode branch;
+    private SwiftCodeSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        headquarter = SwiftCode.builder().swiftCode("PKOPPLPWXXX").countryISO2("PL").country("POLAND").isHeadquarter(true).build();
+        branch = SwiftCode.builder().swiftCode("PKOPPLPW001").countryISO2("PL").country("POLAND").isHeadquarter(false).build();
+        snapshot = SwiftCodeSnapshot.of(List.of(headquarter, branch));
+    }
+
+    @Test
+    void of_shouldIndexByCodePrefixAndCountry() {
+        assertEquals(SwiftCodeEntry.of(headquarter), snapshot.findBySwiftCode("PKOPPLPWXXX"));
+        assertEquals(List.of(SwiftCodeEntry.of(branch)), snapshot.findBranches("PKOPPLPW"));
+        assertEquals(2, snapshot.findByCountry("pl").size());
+        assertNull(snapshot.findBySwiftCode("NOTEXIST"));
+    }
+
+    @Test
+    void with_shouldReturnNewSnapshotAndLeaveOriginalUntouched() {
+        SwiftCode added = SwiftCode.builder().swiftCode("PKOPPLPW002").countryISO2("PL").isHeadquarter(false).build();
+
+        SwiftCodeSnapshot updated = snapshot.with(added);
+
+        assertEquals(3, updated.size());
+        assertEquals(2, updated.findBranches("PKOPPLPW").size());
+        assertEquals(2, snapshot.size());
+        assertEquals(1, snapshot.findBranches("PKOPPLPW").size());
+    }
+
+    @Test
+    void without_shouldRemoveFromAllLookups() {
+        SwiftCodeSnapshot updated = snapshot.without("PKOPPLPW001");
+
+        assertNull(updated.findBySwiftCode("PKOPPLPW001"));
+        assertTrue(updated.findBranches("PKOPPLPW").isEmpty());
+        assertEquals(1, updated.findByCountry("PL").size());
+        assertSame(updated, updated.without("NOTEXIST"));
+    }
+
+    @Test
+    void apply_shouldHandleManyChangesAtOnce() {
+        SwiftCode added = SwiftCode.builder().swiftCode("PKOPPLPW002").countryISO2("PL").isHeadquarter(false).build();
+
+        SwiftCodeSnapshot updated = snapshot.apply(List.of(
+                SwiftCodeChangedEvent.addedChange(added),
+                SwiftCodeChangedEvent.deletedChange("PKOPPLPW001", "PL"),
+                SwiftCodeChangedEvent.deletedChange("PKOPPLPWXXX", "PL")));
+
+        assertEquals(1, updated.size());
+        assertEquals(List.of(SwiftCodeEntry.of(added)), updated.findBranches("PKOPPLPW"));
+        assertEquals(List.of(SwiftCodeEntry.of(added)), updated.findByCountry("PL"));
+    }
+
+    @Test
+    void apply_shouldRegroupBigBatches_toTheSameContentAsSingleChanges() {
+        List<SwiftCodeChangedEvent.Change> changes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            changes.add(SwiftCodeChangedEvent.addedChange(SwiftCode.builder()
+                    .swiftCode(String.format("BANK%04dXXX", i)).countryISO2("DE").isHeadquarter(true).build()));
+        }
+        changes.add(SwiftCodeChangedEvent.deletedChange("PKOPPLPW001", "PL"));
+
+        SwiftCodeSnapshot regrouped = snapshot.apply(changes);
+        SwiftCodeSnapshot incremental = snapshot;
+        for (List<SwiftCodeChangedEvent.Change> single : changes.stream().map(List::of).toList()) {
+            incremental = incremental.apply(single);
+        }
+
+        assertEquals(301, regrouped.size());
+        assertEquals(incremental.size(), regrouped.size());
+        assertEquals(incremental.findByCountry("DE"), regrouped.findByCountry("DE"));
+        assertEquals(incremental.findByCountry("PL"), regrouped.findByCountry("PL"));
+        assertTrue(regrouped.findBranches("PKOPPLPW").isEmpty());
+    }
+
+    @Test
+    void findBySwiftCode_shouldNotFollowChangesToTheEntity() {
+        headquarter.setBankName("CHANGED");
+
+        assertNull(snapshot.findBySwiftCode("PKOPPLPWXXX").bankName());
+    }
+
+    @Test
+    void findByCountryAfter_shouldPageInSwiftCodeOrder() {
+        SwiftCodeSnapshot updated = snapshot
+                .with(SwiftCode.builder().swiftCode("AAAAPLPWXXX").countryISO2("PL").isHeadquarter(true).build())
+                .with(SwiftCode.builder().swiftCode("PKOPPLPW002").countryISO2("PL").isHeadquarter(false).build());
+
+        List<SwiftCodeEntry> firstPage = updated.findByCountryAfter("PL", null, 2);
+        List<SwiftCodeEntry> secondPage = updated.findByCountryAfter("PL", firstPage.getLast().swiftCode(), 2);
+
+        assertEquals(List.of("AAAAPLPWXXX", "PKOPPLPW001"), firstPage.stream().map(SwiftCodeEntry::swiftCode).toList());
+        assertEquals(List.of("PKOPPLPW002", "PKOPPLPWXXX"), secondPage.stream().map(SwiftCodeEntry::swiftCode).toList());
+        assertTrue(updated.findByCountryAfter("PL", "PKOPPLPWXXX", 2).isEmpty());
+    }
+}
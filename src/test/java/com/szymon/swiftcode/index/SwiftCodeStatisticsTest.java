@@ -0,0 +1,135 @@
+package com.szymon.swiftcode.index;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwiftCodeStatisticsTest {
+
+    @Mock
+    private SwiftCodeRepository repository;
+
+    @Mock
+    private SwiftCodeIndex snapshotIndex;
+
+    private SwiftCodeStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new SwiftCodeStatistics(repository, snapshotIndex);
+        ReflectionTestUtils.setField(statistics, "enabled", true);
+    }
+
+    @Test
+    void rebuild_shouldCountHeadquartersBranchesAndBanksPerCountry() {
+        when(repository.findAll()).thenReturn(List.of(
+                swiftCode("PKOPPLPWXXX", "PL"), swiftCode("PKOPPLPWKRK", "PL"), swiftCode("BREXPLPWXXX", "PL"),
+                swiftCode("DEUTDEFFXXX", "DE"), swiftCode("DEUTPLPXXXX", "PL")));
+
+        statistics.rebuild();
+
+        SwiftCodeStatistics.Counters counters = statistics.current();
+        assertEquals(4, counters.headquarters());
+        assertEquals(1, counters.branches());
+        assertEquals(3, counters.banks());
+
+        SwiftCodeStatistics.Country poland = counters.country("pl");
+        assertEquals("POLAND", poland.countryName());
+        assertEquals(3, poland.headquarters());
+        assertEquals(1, poland.branches());
+        assertEquals(3, poland.banks());
+        assertEquals(1, counters.country("DE").banks());
+    }
+
+    @Test
+    void rebuild_shouldCountTheSnapshotRows_insteadOfLoadingThemAgain() {
+        when(snapshotIndex.current()).thenReturn(SwiftCodeSnapshot.of(List.of(swiftCode("PKOPPLPWXXX", "PL"))));
+
+        statistics.rebuild();
+
+        assertEquals(1, statistics.current().headquarters());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldUpdateCounters_andCountReplayedChangesOnce() {
+        when(repository.findAll()).thenReturn(List.of(swiftCode("PKOPPLPWXXX", "PL")));
+        statistics.rebuild();
+
+        SwiftCode branch = swiftCode("PKOPPLPWKRK", "PL");
+        statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.added(branch));
+        statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.fromOtherInstance(List.of(SwiftCodeChangedEvent.addedChange(branch))));
+        statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPWXXX", "PL"));
+        statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPWXXX", "PL"));
+
+        SwiftCodeStatistics.Country poland = statistics.current().country("PL");
+        assertEquals(0, poland.headquarters());
+        assertEquals(1, poland.branches());
+        assertEquals(1, poland.banks());
+
+        statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted("PKOPPLPWKRK", "PL"));
+        assertNull(statistics.current().country("PL"));
+        assertEquals(0, statistics.current().banks());
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldStayExact_underConcurrentAddsAndDeletes() throws Exception {
+        when(repository.findAll()).thenReturn(List.of());
+        statistics.rebuild();
+
+        //every thread adds its own branches and then deletes every second one, all in the same bank
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.added(swiftCode(code(thread, i), "PL")));
+                }
+                for (int i = 0; i < perThread; i += 2) {
+                    statistics.onSwiftCodeChanged(SwiftCodeChangedEvent.deleted(code(thread, i), "PL"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        SwiftCodeStatistics.Country poland = statistics.current().country("PL");
+        assertEquals(threads * perThread / 2, poland.branches());
+        assertEquals(0, poland.headquarters());
+        assertEquals(1, poland.banks());
+    }
+
+    private static String code(int thread, int i) {
+        return String.format("PKOPPLPW%d%02d", thread, i % 100) + "-" + i / 100;
+    }
+
+    private static SwiftCode swiftCode(String code, String countryISO2) {
+        return SwiftCode.builder()
+                .swiftCode(code)
+                .countryISO2(countryISO2)
+                .country(countryISO2.equals("PL") ? "POLAND" : "GERMANY")
+                .isHeadquarter(code.endsWith("XXX"))
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.szymon.swiftcode.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//every in-memory read model off, reads go to the (mocked) repository as with SWIFT_SNAPSHOT_ENABLED=false
+@SpringBootTest(properties = {"swift.snapshot.enabled=false", "swift.response-cache.enabled=false",
+        "swift.membership-filter.enabled=false", "swift.import.snapshot.enabled=false", "swift.import.async=false"})
+@AutoConfigureMockMvc
+public class SwiftCodeDatabaseReadIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private SwiftCodeRepository repository;
+
+    @MockitoBean
+    private SwiftCodeBulkWriter bulkWriter;
+
+    @Test
+    void getSwiftDetails_shouldReturnBranchDTO_whenValidSwiftCodeGiven() throws Exception {
+        BranchDTO dto = BranchDTO.builder()
+                .swiftCode("PKOPPLPW001")
+                .bankName("PKO Branch")
+                .address("Warsaw")
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .isHeadquarter(false)
+                .build();
+
+        when(repository.findDetailsRows("PKOPPLPW001", "PKOPPLPW")).thenReturn(List.of(new SwiftCodeRow(
+                dto.getSwiftCode(), dto.getBankName(), dto.getAddress(), dto.getCountryISO2(), dto.getCountryName(),
+                dto.getIsHeadquarter())));
+
+        mockMvc.perform(get("/v1/swift-codes/PKOPPLPW001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.swiftCode").value("PKOPPLPW001"))
+                .andExpect(jsonPath("$.isHeadquarter").value(false));
+    }
+
+    @Test
+    void getSwiftDetails_shouldReturnNotFound_whenSwiftCodeDoesNotExist() throws Exception {
+        when(repository.findDetailsRows("NOTFOUND", "NOTFOUND")).thenReturn(List.of());
+
+        mockMvc.perform(get("/v1/swift-codes/NOTFOUND"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("SwiftCode not found with swiftCode: 'NOTFOUND'"));
+    }
+
+    @Test
+    void getSwiftByCountry_shouldReturnList_whenValidCountryCodeGiven() throws Exception {
+        List<SwiftCodeRow> swiftCodes = List.of(
+                new SwiftCodeRow("PKO12345", "PKO", "Address", "PL", "POLAND", true),
+                new SwiftCodeRow("PKO12346", "PKO Branch", "Branch Address", "PL", "POLAND", false)
+        );
+
+        when(repository.findByCountryISO2("PL")).thenReturn(swiftCodes);
+
+        mockMvc.perform(get("/v1/swift-codes/country/PL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countryISO2").value("PL"))
+                .andExpect(jsonPath("$.swiftCodes.length()").value(2));
+    }
+
+    @Test
+    void getSwiftByCountry_shouldReturnNotFound_whenNoSwiftCodesExistForCountry() throws Exception {
+        when(repository.findByCountryISO2("XX")).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/v1/swift-codes/country/XX"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Country not found with countryISO2: 'XX'"));
+    }
+
+    @Test
+    void deleteSwiftCode_shouldReturnOk_whenSwiftCodeExists() throws Exception {
+        when(repository.findCountryISO2BySwiftCode("PKO12345")).thenReturn("PL");
+
+        mockMvc.perform(delete("/v1/swift-codes/PKO12345"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Swift code deleted successfully"));
+    }
+}
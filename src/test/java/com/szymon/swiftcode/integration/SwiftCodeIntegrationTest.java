@@ -3,24 +3,24 @@ package com.szymon.swiftcode.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.szymon.swiftcode.dto.BranchDTO;
 import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
 import com.szymon.swiftcode.repository.SwiftCodeRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.Collections;
-import java.util.List;
-
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+//runs with the production read path: snapshot, Bloom filter and response cache
+@SpringBootTest(properties = {"swift.import.snapshot.enabled=false", "swift.import.async=false"})
 @AutoConfigureMockMvc
 public class SwiftCodeIntegrationTest {
 
@@ -33,6 +33,9 @@ public class SwiftCodeIntegrationTest {
     @MockitoBean
     private SwiftCodeRepository repository;
 
+    @MockitoBean
+    private SwiftCodeBulkWriter bulkWriter;
+
     @Test
     void addSwift_shouldReturn201_whenValidDataProvided() throws Exception {
         BranchDTO dto = BranchDTO.builder()
@@ -97,87 +100,62 @@ public class SwiftCodeIntegrationTest {
                         .value("Swift code must be between 8 and 11 characters"));
     }
 
-    ///////
+    //add, read, delete and read again through the snapshot, the Bloom filter and the response cache,
+    //which only stay correct if the change events reach them after each commit
     @Test
-    void getSwiftDetails_shouldReturnBranchDTO_whenValidSwiftCodeGiven() throws Exception {
+    void addGetDelete_shouldKeepCachedReadsInStep() throws Exception {
         BranchDTO dto = BranchDTO.builder()
-                .swiftCode("PKOPPLPW001")
-                .bankName("PKO Branch")
-                .address("Warsaw")
-                .countryISO2("PL")
-                .countryName("POLAND")
-                .isHeadquarter(false)
+                .swiftCode("LIFELULLXXX")
+                .bankName("Lifecycle Bank")
+                .address("Test Address")
+                .countryISO2("LU")
+                .countryName("LUXEMBOURG")
+                .isHeadquarter(true)
                 .build();
+        when(repository.save(any(SwiftCode.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(repository.findBySwiftCode("PKOPPLPW001")).thenReturn(SwiftCode.builder()
-                .swiftCode(dto.getSwiftCode())
-                .bankName(dto.getBankName())
-                .address(dto.getAddress())
-                .countryISO2(dto.getCountryISO2())
-                .country(dto.getCountryName())
-                .isHeadquarter(dto.getIsHeadquarter())
-                .build());
-
-        mockMvc.perform(get("/v1/swift-codes/PKOPPLPW001"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.swiftCode").value("PKOPPLPW001"))
-                .andExpect(jsonPath("$.isHeadquarter").value(false));
-    }
-
-    @Test
-    void getSwiftDetails_shouldReturnNotFound_whenSwiftCodeDoesNotExist() throws Exception {
-        when(repository.findBySwiftCode("NOTFOUND")).thenReturn(null);
-
-        mockMvc.perform(get("/v1/swift-codes/NOTFOUND"))
-                .andExpect(status().isNotFound())
-                .andExpect(jsonPath("$.message").value("SwiftCode not found with swiftCode: 'NOTFOUND'"));
-    }
-
-    ///
-    @Test
-    void getSwiftByCountry_shouldReturnList_whenValidCountryCodeGiven() throws Exception {
-        List<SwiftCode> swiftCodes = List.of(
-                SwiftCode.builder().swiftCode("PKO12345").bankName("PKO").address("Address").countryISO2("PL").country("POLAND").isHeadquarter(true).build(),
-                SwiftCode.builder().swiftCode("PKO12346").bankName("PKO Branch").address("Branch Address").countryISO2("PL").country("POLAND").isHeadquarter(false).build()
-        );
+        mockMvc.perform(get("/v1/swift-codes/LIFELULLXXX"))
+                .andExpect(status().isNotFound());
 
-        when(repository.findByCountryISO2IgnoreCase("PL")).thenReturn(swiftCodes);
+        mockMvc.perform(post("/v1/swift-codes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
 
-        mockMvc.perform(get("/v1/swift-codes/country/PL"))
+        String etag = mockMvc.perform(get("/v1/swift-codes/LIFELULLXXX"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.countryISO2").value("PL"))
-                .andExpect(jsonPath("$.swiftCodes.length()").value(2));
-    }
-
-    @Test
-    void getSwiftByCountry_shouldReturnNotFound_whenNoSwiftCodesExistForCountry() throws Exception {
-        when(repository.findByCountryISO2IgnoreCase("XX")).thenReturn(Collections.emptyList());
-
-        mockMvc.perform(get("/v1/swift-codes/country/XX"))
-                .andExpect(status().isNotFound())
-                .andExpect(jsonPath("$.message").value("Country not found with countryISO2: 'XX'"));
-    }
+                .andExpect(jsonPath("$.bankName").value("Lifecycle Bank"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/v1/swift-codes/LIFELULLXXX").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/v1/swift-codes/country/LU"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.swiftCodes[?(@.swiftCode == 'LIFELULLXXX')]").exists());
 
-    ////
-    @Test
-    void deleteSwiftCode_shouldReturnOk_whenSwiftCodeExists() throws Exception {
-        when(repository.existsBySwiftCode("PKO12345")).thenReturn(true);
+        when(repository.findCountryISO2BySwiftCode("LIFELULLXXX")).thenReturn("LU");
+        mockMvc.perform(delete("/v1/swift-codes/LIFELULLXXX"))
+                .andExpect(status().isOk());
 
-        mockMvc.perform(delete("/v1/swift-codes/PKO12345"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Swift code deleted successfully"));
+        mockMvc.perform(get("/v1/swift-codes/LIFELULLXXX").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/v1/swift-codes/country/LU"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
     void deleteSwiftCode_shouldReturnNotFound_whenSwiftCodeDoesNotExist() throws Exception {
-        when(repository.existsBySwiftCode("DOESNOTEXIST")).thenReturn(false);
+        when(repository.findCountryISO2BySwiftCode("DOESNOTEXIST")).thenReturn(null);
 
         mockMvc.perform(delete("/v1/swift-codes/DOESNOTEXIST"))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value("SwiftCode not found with swiftCode: 'DOESNOTEXIST'"));
     }
 
-
-
-
+    @Test
+    void readiness_shouldBeUp_onceDataIsLoaded() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.components.dataLoad.details.phase").value("READY"));
+    }
 }
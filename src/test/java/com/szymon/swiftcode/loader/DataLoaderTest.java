@@ -0,0 +1,160 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataLoaderTest {
+    @Mock
+    private SwiftCodeRepository repository;
+
+    @Mock
+    private ImportPipeline importPipeline;
+
+    @Mock
+    private DeltaReloader deltaReloader;
+
+    @Mock
+    private SwiftCodeBulkWriter bulkWriter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DataLoadStatus status;
+    private DataLoader dataLoader;
+
+    @BeforeEach
+    void setUp() {
+        status = new DataLoadStatus();
+        dataLoader = new DataLoader(repository, importPipeline, deltaReloader, bulkWriter, eventPublisher,
+                new SimpleMeterRegistry(), status);
+        ReflectionTestUtils.setField(dataLoader, "filePath", "swiftCodes.xlsx");
+    }
+
+    @Test
+    void load_shouldBecomeReady_afterImportAndReadModels() throws Exception {
+        when(repository.count()).thenReturn(0L);
+        when(importPipeline.run(any())).thenReturn(List.of());
+
+        dataLoader.load();
+
+        assertTrue(status.isReady());
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.local(true));
+    }
+
+    @Test
+    void load_shouldFail_whenFirstImportLeavesTableEmpty() throws Exception {
+        when(repository.count()).thenReturn(0L);
+        when(importPipeline.run(any())).thenThrow(new IOException("file not found"));
+
+        dataLoader.load();
+
+        assertEquals(DataLoadStatus.Phase.FAILED, status.getPhase());
+        assertEquals("file not found", status.getError());
+    }
+
+    @Test
+    void load_shouldFailAndRemovePartialRows_whenFirstImportFailsPartway() throws Exception {
+        when(repository.count()).thenReturn(0L);
+        //the pipeline has committed some batches before it fails
+        when(importPipeline.run(any())).thenThrow(new IOException("truncated workbook"));
+
+        dataLoader.load();
+
+        assertEquals(DataLoadStatus.Phase.FAILED, status.getPhase());
+        assertEquals("truncated workbook", status.getError());
+        verify(repository, times(2)).deleteAll();
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.local(true));
+    }
+
+    @Test
+    void load_shouldStayReady_whenDeltaReloadFailsOverExistingData() throws Exception {
+        ReflectionTestUtils.setField(dataLoader, "deltaReload", true);
+        when(repository.count()).thenReturn(7L);
+        when(deltaReloader.reload(any())).thenThrow(new IOException("file not found"));
+
+        dataLoader.load();
+
+        assertTrue(status.isReady());
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.local(false));
+    }
+
+    @Test
+    void load_shouldPublishOnlyTheChangedCodes_afterSmallDelta() throws Exception {
+        ReflectionTestUtils.setField(dataLoader, "deltaReload", true);
+        ReflectionTestUtils.setField(dataLoader, "deltaEventLimit", 10);
+        when(repository.count()).thenReturn(7L);
+        List<SwiftCodeChangedEvent.Change> changes = List.of(SwiftCodeChangedEvent.deletedChange("ABCDEF12XXX", "PL"));
+        when(deltaReloader.reload(any())).thenReturn(new DeltaReloadResult(0, 0, 1, 6, changes));
+
+        dataLoader.load();
+
+        verify(eventPublisher).publishEvent(new SwiftCodeChangedEvent(changes));
+        //builds the local read models without telling the other instances to rebuild theirs
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.local(false));
+    }
+
+    @Test
+    void reloadIfFileChanged_shouldApplyChangedFile(@TempDir Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("swiftCodes.xlsx"), "v1");
+        ReflectionTestUtils.setField(dataLoader, "filePath", file.toString());
+        ReflectionTestUtils.setField(dataLoader, "watchFile", true);
+        ReflectionTestUtils.setField(dataLoader, "deltaEventLimit", 10);
+        when(repository.count()).thenReturn(7L);
+        dataLoader.load();
+
+        dataLoader.reloadIfFileChanged();
+        verifyNoInteractions(deltaReloader);
+
+        Files.writeString(file, "v2 with more rows");
+        List<SwiftCodeChangedEvent.Change> changes = List.of(SwiftCodeChangedEvent.addedChange(
+                SwiftCode.builder().swiftCode("ABCDEF12XXX").countryISO2("PL").isHeadquarter(true).build()));
+        when(deltaReloader.reload(any())).thenReturn(new DeltaReloadResult(1, 0, 0, 7, changes));
+        dataLoader.reloadIfFileChanged();
+        dataLoader.reloadIfFileChanged();
+
+        verify(deltaReloader, times(1)).reload(file.toFile());
+        verify(eventPublisher).publishEvent(new SwiftCodeChangedEvent(changes));
+        verify(eventPublisher, never()).publishEvent(DatasetReloadedEvent.local(true));
+    }
+
+    @Test
+    void reloadIfFileChanged_shouldRebuildEverything_whenDeltaIsOverTheLimit(@TempDir Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("swiftCodes.xlsx"), "v1");
+        ReflectionTestUtils.setField(dataLoader, "filePath", file.toString());
+        ReflectionTestUtils.setField(dataLoader, "watchFile", true);
+        ReflectionTestUtils.setField(dataLoader, "deltaEventLimit", 1);
+        when(repository.count()).thenReturn(7L);
+        dataLoader.load();
+
+        Files.writeString(file, "v2 without two rows");
+        when(deltaReloader.reload(any())).thenReturn(new DeltaReloadResult(0, 0, 2, 5, List.of(
+                SwiftCodeChangedEvent.deletedChange("ABCDEF12XXX", "PL"),
+                SwiftCodeChangedEvent.deletedChange("ABCDEF12ABC", "PL"))));
+        dataLoader.reloadIfFileChanged();
+
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.local(true));
+        verify(eventPublisher, never()).publishEvent(any(SwiftCodeChangedEvent.class));
+    }
+}
@@ -0,0 +1,120 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeltaReloaderTest {
+    private static final File EXAMPLE = new File("src/test/resources/example.xlsx");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SwiftCodeBulkWriter bulkWriter;
+
+    @Captor
+    private ArgumentCaptor<List<SwiftCode>> swiftCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<String>> codeCaptor;
+
+    private SwiftCodeParser parser;
+    private DeltaReloader deltaReloader;
+
+    @BeforeEach
+    void setUp() {
+        parser = new SwiftCodeParser();
+        deltaReloader = new DeltaReloader(jdbcTemplate, new DirectoryFileReader(parser), parser, bulkWriter);
+    }
+
+    @Test
+    void reload_shouldOnlyWriteChangedRows() throws Exception {
+        List<SwiftCode> stored = new ArrayList<>();
+        parser.streamRows(EXAMPLE, cells -> {
+            SwiftCode swiftCode = parser.toSwiftCode(cells);
+            if (swiftCode != null) stored.add(swiftCode);
+        });
+
+        SwiftCode removedFromFile = stored.remove(stored.size() - 1);
+        stored.get(1).setBankName("OLD BANK NAME");
+        stored.add(SwiftCode.builder().swiftCode("GONEPLPWXXX").countryISO2("PL").isHeadquarter(true).build());
+        mockStoredRows(stored);
+
+        DeltaReloadResult result = deltaReloader.reload(EXAMPLE);
+
+        verify(bulkWriter).write(swiftCaptor.capture());
+        assertEquals(List.of(removedFromFile.getSwiftCode()), swiftCaptor.getValue().stream().map(SwiftCode::getSwiftCode).toList());
+        verify(bulkWriter).update(swiftCaptor.capture());
+        assertEquals(List.of(stored.get(1).getSwiftCode()), swiftCaptor.getValue().stream().map(SwiftCode::getSwiftCode).toList());
+        verify(bulkWriter).delete(codeCaptor.capture());
+        assertEquals(List.of("GONEPLPWXXX"), codeCaptor.getValue());
+        assertEquals(5, result.unchanged());
+
+        assertEquals(List.of(
+                removedFromFile.getSwiftCode(),
+                stored.get(1).getSwiftCode(),
+                "GONEPLPWXXX"), result.changes().stream().map(SwiftCodeChangedEvent.Change::swiftCode).toList());
+        assertEquals(SwiftCodeChangedEvent.deletedChange("GONEPLPWXXX", "PL"), result.changes().getLast());
+    }
+
+    @Test
+    void reload_shouldTakeTheRowOutOfItsOldCountry_whenUpdateMovesIt() throws Exception {
+        List<SwiftCode> stored = new ArrayList<>();
+        parser.streamRows(EXAMPLE, cells -> {
+            SwiftCode swiftCode = parser.toSwiftCode(cells);
+            if (swiftCode != null) stored.add(swiftCode);
+        });
+        SwiftCode moved = stored.getFirst();
+        String currentCountry = moved.getCountryISO2();
+        moved.setCountryISO2("ZZ");
+        mockStoredRows(stored);
+
+        DeltaReloadResult result = deltaReloader.reload(EXAMPLE);
+
+        assertEquals(SwiftCodeChangedEvent.deletedChange(moved.getSwiftCode(), "ZZ"), result.changes().getFirst());
+        SwiftCodeChangedEvent.Change added = result.changes().get(1);
+        assertEquals(SwiftCodeChangedEvent.Operation.ADDED, added.operation());
+        assertEquals(currentCountry, added.countryISO2());
+    }
+
+    private void mockStoredRows(List<SwiftCode> stored) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (SwiftCode swiftCode : stored) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getString("swift_code")).thenReturn(swiftCode.getSwiftCode());
+                when(resultSet.getString("iso2")).thenReturn(swiftCode.getCountryISO2());
+                when(resultSet.getBoolean("is_headquarter")).thenReturn(swiftCode.isHeadquarter());
+                when(resultSet.getString("bank_name")).thenReturn(swiftCode.getBankName());
+                when(resultSet.getString("address")).thenReturn(swiftCode.getAddress());
+                when(resultSet.getString("city")).thenReturn(swiftCode.getCity());
+                when(resultSet.getString("country")).thenReturn(swiftCode.getCountry());
+                when(resultSet.getString("time_zone")).thenReturn(swiftCode.getTimeZone());
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
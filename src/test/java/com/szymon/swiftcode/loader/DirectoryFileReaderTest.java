@@ -0,0 +1,140 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DirectoryFileReaderTest {
+    private static final Path EXAMPLE = Path.of("src/test/resources/example.xlsx");
+
+    @TempDir
+    private Path directory;
+
+    private SwiftCodeParser parser;
+    private DirectoryFileReader fileReader;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.copy(EXAMPLE, directory.resolve("swiftCodes.xlsx")).toFile();
+        parser = spy(new SwiftCodeParser());
+        fileReader = new DirectoryFileReader(parser);
+        ReflectionTestUtils.setField(fileReader, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(fileReader, "snapshotPath", directory.resolve("swiftCodes.xlsx.snapshot").toString());
+    }
+
+    @Test
+    void streamRows_shouldReadSnapshot_onSecondRead() throws IOException {
+        List<String[]> parsed = read();
+        List<String[]> fromSnapshot = read();
+
+        verify(parser, times(1)).streamRows(any(), any());
+        assertTrue(Files.exists(directory.resolve("swiftCodes.xlsx.snapshot")));
+        assertEquals(7, fromSnapshot.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            assertArrayEquals(parsed.get(i), fromSnapshot.get(i));
+        }
+    }
+
+    @Test
+    void streamRows_shouldKeepSnapshotInSnapshotDirectory_whenNoPathIsSet() throws IOException {
+        Path snapshots = directory.resolve("snapshots");
+        ReflectionTestUtils.setField(fileReader, "snapshotDir", snapshots.toString());
+        ReflectionTestUtils.setField(fileReader, "snapshotPath", "");
+
+        read();
+        read();
+
+        verify(parser, times(1)).streamRows(any(), any());
+        try (Stream<Path> files = Files.list(snapshots)) {
+            assertEquals(List.of(snapshots.resolve("swiftCodes.xlsx.snapshot")), files.toList());
+        }
+    }
+
+    @Test
+    void streamRows_shouldParseAgain_whenFileChanged() throws Exception {
+        read();
+        try (InputStream in = Files.newInputStream(EXAMPLE);
+             XSSFWorkbook workbook = new XSSFWorkbook(in);
+             OutputStream out = Files.newOutputStream(file.toPath())) {
+            workbook.getSheetAt(0).getRow(1).getCell(3).setCellValue("NEW BANK NAME");
+            workbook.write(out);
+        }
+
+        assertEquals("NEW BANK NAME", read().get(0)[3]);
+        verify(parser, times(2)).streamRows(any(), any());
+    }
+
+    @Test
+    void streamRows_shouldParseAgain_whenSnapshotIsCorrupt() throws IOException {
+        read();
+        Path snapshot = directory.resolve("swiftCodes.xlsx.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        assertEquals(7, read().size());
+        verify(parser, times(2)).streamRows(any(), any());
+    }
+
+    @Test
+    void snapshot_shouldKeepEmptyCellsAndNonAsciiValues() throws IOException {
+        Path snapshot = directory.resolve("rows.snapshot");
+        RowSnapshotFile.Source source = new RowSnapshotFile.Source(10, 42);
+        List<String[]> rows = List.of(
+                new String[]{"PL", "ABCDEF12XXX", null, "BANK", "ŁÓDŹ", null, "POLAND", "Europe/Warsaw"},
+                new String[]{"PL", "ABCDEF12ABC", null, "BANK", "", null, "POLAND", "Europe/Warsaw"});
+        try (RowSnapshotFile.Writer writer = RowSnapshotFile.writer(snapshot, source, SwiftCodeParser.COLUMN_COUNT)) {
+            rows.forEach(writer::add);
+            writer.commit();
+        }
+
+        List<String[]> read = new ArrayList<>();
+        assertEquals(2, RowSnapshotFile.read(snapshot, source, SwiftCodeParser.COLUMN_COUNT, read::add));
+        assertArrayEquals(rows.get(0), read.get(0));
+        assertArrayEquals(rows.get(1), read.get(1));
+        assertSame(read.get(0)[6], read.get(1)[6]);
+
+        assertEquals(-1, RowSnapshotFile.read(snapshot, new RowSnapshotFile.Source(10, 43),
+                SwiftCodeParser.COLUMN_COUNT, read::add));
+        assertEquals(2, read.size());
+    }
+
+    @Test
+    void streamRows_shouldLeaveNoSnapshot_whenParsingFailsPartway() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<String[]> consumer = invocation.getArgument(1);
+            consumer.accept(new String[]{"PL", "ABCDEF12XXX", null, "BANK", "STREET", null, "POLAND", "Europe/Warsaw"});
+            throw new IOException("truncated workbook");
+        }).when(parser).streamRows(any(), any());
+
+        assertThrows(IOException.class, this::read);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file.toPath()), files.toList());
+        }
+    }
+
+    private List<String[]> read() throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        fileReader.streamRows(file, rows::add);
+        return rows;
+    }
+}
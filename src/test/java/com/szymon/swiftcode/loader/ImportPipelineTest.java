@@ -0,0 +1,72 @@
+package com.szymon.swiftcode.loader;
+
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import com.szymon.swiftcode.utils.SwiftCodeParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportPipelineTest {
+
+    @Mock
+    private SwiftCodeBulkWriter bulkWriter;
+
+    private ImportPipeline pipeline;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        SwiftCodeParser parser = new SwiftCodeParser();
+        pipeline = new ImportPipeline(new DirectoryFileReader(parser), parser, bulkWriter, meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 2);
+        ReflectionTestUtils.setField(pipeline, "mapperThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "writerThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1);
+    }
+
+    @Test
+    void run_shouldWriteEveryRowAndReportStageStats() throws Exception {
+        List<SwiftCode> written = Collections.synchronizedList(new ArrayList<>());
+        when(bulkWriter.write(anyList())).thenAnswer(invocation -> {
+            List<SwiftCode> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+
+        List<ImportStageStats> stats = pipeline.run(new File("src/test/resources/example.xlsx"));
+
+        assertEquals(7, written.size());
+        assertEquals(List.of("read", "map", "write"), stats.stream().map(ImportStageStats::getStage).toList());
+        assertEquals(List.of(7L, 7L, 7L), stats.stream().map(ImportStageStats::getRows).toList());
+        assertEquals(7, meterRegistry.get("swift.import.rows").tag("outcome", "written").counter().count());
+        assertEquals(0, meterRegistry.get("swift.import.rows").tag("outcome", "rejected").counter().count());
+        assertTrue(meterRegistry.get("swift.import.stage.throughput").tag("stage", "write").gauge().value() > 0);
+    }
+
+    @Test
+    void run_shouldFailWhenWriterFails() throws Exception {
+        when(bulkWriter.write(anyList())).thenThrow(new SQLException("connection lost"));
+
+        SQLException exception = assertThrows(SQLException.class,
+                () -> pipeline.run(new File("src/test/resources/example.xlsx")));
+
+        assertEquals("connection lost", exception.getMessage());
+    }
+}
@@ -0,0 +1,221 @@
+package com.szymon.swiftcode.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.cache.CachedResponse;
+import com.szymon.swiftcode.cache.SwiftCodeResponseCache;
+import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.index.SwiftCodeIndex;
+import com.szymon.swiftcode.index.SwiftCodeMembershipFilter;
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import com.szymon.swiftcode.service.SwiftCodeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveSwiftCodeServiceTest {
+    @Mock
+    private ReactiveSwiftCodeRepository repository;
+
+    @Mock
+    private SwiftCodeService swiftCodeService;
+
+    //no snapshot, every read goes to r2dbc
+    @Mock
+    private SwiftCodeIndex index;
+
+    @Spy
+    private SwiftCodeMembershipFilter membershipFilter = new SwiftCodeMembershipFilter(null, new SimpleMeterRegistry());
+
+    @Spy
+    private SwiftCodeResponseCache responseCache = new SwiftCodeResponseCache(new ObjectMapper(), new SimpleMeterRegistry());
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ReactiveSwiftCodeService reactiveService;
+
+    @Test
+    void getSwiftDetails_shouldReturnHeadquarterWithBranches_fromOneQuery() {
+        when(repository.findDetailsRows("ABCDEF12XXX", "ABCDEF12")).thenReturn(Flux.just(
+                row("ABCDEF12ABC", false), row("ABCDEF12XXX", true), row("ABCDEF12XYZ", false)));
+
+        StepVerifier.create(reactiveService.getSwiftDetails("ABCDEF12XXX"))
+                .assertNext(dto -> {
+                    HeadquarterDTO headquarter = assertInstanceOf(HeadquarterDTO.class, dto);
+                    assertEquals("ABCDEF12XXX", headquarter.getSwiftCode());
+                    assertEquals(2, headquarter.getBranches().size());
+                })
+                .verifyComplete();
+        verifyNoInteractions(swiftCodeService);
+    }
+
+    @Test
+    void getSwiftDetails_shouldSignalNotFound_whenNoRowMatches() {
+        when(repository.findDetailsRows("ABCDEF12ABC", "ABCDEF12")).thenReturn(Flux.empty());
+
+        StepVerifier.create(reactiveService.getSwiftDetails("ABCDEF12ABC"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getSwiftDetails_shouldAnswerFromCapturedSnapshot_whenIndexIsReady() {
+        SwiftCodeSnapshot snapshot = mock(SwiftCodeSnapshot.class);
+        when(index.current()).thenReturn(snapshot);
+
+        reactiveService.getSwiftDetails("ABCDEF12XXX").block();
+
+        verify(swiftCodeService).getSwiftDetails("ABCDEF12XXX", snapshot);
+        verifyNoMoreInteractions(swiftCodeService);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getSwiftDetailsResponse_shouldServeRepeatedReadsFromResponseCache() {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        when(repository.findDetailsRows("ABCDEF12XXX", "ABCDEF12")).thenReturn(Flux.just(row("ABCDEF12XXX", true)));
+
+        CachedResponse first = reactiveService.getSwiftDetailsResponse("ABCDEF12XXX").block();
+        CachedResponse second = reactiveService.getSwiftDetailsResponse("ABCDEF12XXX").block();
+
+        assertSame(first, second);
+        verify(repository, times(1)).findDetailsRows("ABCDEF12XXX", "ABCDEF12");
+    }
+
+    @Test
+    void getSwiftDetailsResponse_shouldLoadAgain_afterInvalidation() {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        when(repository.findDetailsRows("ABCDEF12XXX", "ABCDEF12")).thenReturn(Flux.just(row("ABCDEF12XXX", true)));
+
+        reactiveService.getSwiftDetailsResponse("ABCDEF12XXX").block();
+        responseCache.invalidate();
+        reactiveService.getSwiftDetailsResponse("ABCDEF12XXX").block();
+
+        verify(repository, times(2)).findDetailsRows("ABCDEF12XXX", "ABCDEF12");
+    }
+
+    @Test
+    void streamSwiftCodesByCountry_shouldQueryTheNormalizedCountry() {
+        when(repository.streamByCountryISO2("PL")).thenReturn(Flux.just(row("ABCDEF12ABC", false), row("ABCDEF12XXX", true)));
+
+        StepVerifier.create(reactiveService.streamSwiftCodesByCountry("pl"))
+                .expectNextMatches(dto -> dto.getSwiftCode().equals("ABCDEF12ABC"))
+                .expectNextMatches(dto -> dto.getSwiftCode().equals("ABCDEF12XXX"))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamSwiftCodesByCountry_shouldSignalNotFound_whenCountryIsEmpty() {
+        when(repository.streamByCountryISO2("ZZ")).thenReturn(Flux.empty());
+
+        StepVerifier.create(reactiveService.streamSwiftCodesByCountry("ZZ"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void streamSwiftCodesByCountryJson_shouldWriteRowsAsSeparateChunks_andCacheSmallCountries() throws IOException {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(reactiveService, "maxCachedCountryBytes", 1024);
+        when(repository.streamByCountryISO2("PL")).thenReturn(Flux.just(row("ABCDEF12ABC", false), row("ABCDEF12XXX", true)));
+
+        List<byte[]> chunks = reactiveService.streamSwiftCodesByCountryJson("PL").collectList().block();
+
+        assertNotNull(chunks);
+        assertTrue(chunks.size() > 1);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        chunks.forEach(body::writeBytes);
+        CountryISO2CodeDTO country = objectMapper.readValue(body.toByteArray(), CountryISO2CodeDTO.class);
+        assertEquals("POLAND", country.getCountryName());
+        assertEquals(2, country.getSwiftCodes().size());
+
+        CachedResponse cached = reactiveService.getCachedSwiftCodesByCountryResponse("PL").block();
+        assertNotNull(cached);
+        assertArrayEquals(body.toByteArray(), cached.body());
+    }
+
+    @Test
+    void streamSwiftCodesByCountryJson_shouldCacheOneListingForEveryCasing() throws IOException {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(reactiveService, "maxCachedCountryBytes", 1024);
+        when(repository.streamByCountryISO2("PL")).thenReturn(Flux.just(row("ABCDEF12XXX", true)));
+
+        reactiveService.streamSwiftCodesByCountryJson("pl").blockLast();
+
+        CachedResponse cached = reactiveService.getCachedSwiftCodesByCountryResponse("PL").block();
+        assertNotNull(cached);
+        assertSame(cached, reactiveService.getCachedSwiftCodesByCountryResponse("Pl").block());
+        assertEquals("PL", objectMapper.readValue(cached.body(), CountryISO2CodeDTO.class).getCountryISO2());
+    }
+
+    @Test
+    void streamSwiftCodesByCountryJson_shouldNotCache_whenCountryIsOverTheLimit() {
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(reactiveService, "maxCachedCountryBytes", 64);
+        when(repository.streamByCountryISO2("PL")).thenReturn(Flux.just(row("ABCDEF12ABC", false), row("ABCDEF12XXX", true)));
+
+        reactiveService.streamSwiftCodesByCountryJson("PL").blockLast();
+
+        assertNull(reactiveService.getCachedSwiftCodesByCountryResponse("PL").block());
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldReturnCursor_whenMoreRowsExist() {
+        when(repository.findCountryPage("PL", "", 3)).thenReturn(Flux.just(
+                row("ABCDEF12ABC", false), row("ABCDEF12XXX", true), row("ABCDEF12XYZ", false)));
+
+        StepVerifier.create(reactiveService.getSwiftCodesByCountryPage("PL", null, 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getSwiftCodes().size());
+                    assertEquals("ABCDEF12XXX", page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldSignalNotFound_whenCountryIsUnknownAndCursorIsSet() {
+        when(repository.findCountryPage("XX", "AAAAXXXXXXX", 11)).thenReturn(Flux.empty());
+        when(repository.existsByCountryISO2("XX")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(reactiveService.getSwiftCodesByCountryPage("XX", "AAAAXXXXXXX", 10))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldReturnEmptyPage_whenCursorIsPastTheLastCode() {
+        when(repository.findCountryPage("PL", "ZZZZPLPWXXX", 11)).thenReturn(Flux.empty());
+        when(repository.existsByCountryISO2("PL")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(reactiveService.getSwiftCodesByCountryPage("PL", "ZZZZPLPWXXX", 10))
+                .assertNext(page -> {
+                    assertTrue(page.getSwiftCodes().isEmpty());
+                    assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    private static SwiftCodeRow row(String swiftCode, boolean isHeadquarter) {
+        return new SwiftCodeRow(swiftCode, "Bank", "Street", "PL", "POLAND", isHeadquarter);
+    }
+}
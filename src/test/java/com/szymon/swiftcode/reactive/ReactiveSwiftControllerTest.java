@@ -0,0 +1,264 @@
+package com.szymon.swiftcode.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.cache.CachedResponse;
+import com.szymon.swiftcode.cache.SwiftCodeResponseCache;
+import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkItemResult;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
+import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.mapper.SwiftCodeMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@WebFluxTest(value = ReactiveSwiftController.class, properties = "swift.bulk.chunk-size=2")
+@ActiveProfiles("reactive")
+class ReactiveSwiftControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ReactiveSwiftCodeService swiftCodeService;
+
+    @Test
+    void getSwiftDetails_shouldReturnHeadquarterWithBranches() {
+        HeadquarterDTO headquarter = HeadquarterDTO.builder()
+                .swiftCode("ABCDEF12XXX")
+                .bankName("Bank")
+                .address("Street")
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .isHeadquarter(true)
+                .branches(List.of(branch("ABCDEF12ABC")))
+                .build();
+        CachedResponse response = cached(headquarter);
+        when(swiftCodeService.getSwiftDetailsResponse("ABCDEF12XXX")).thenReturn(Mono.just(response));
+
+        webTestClient.get().uri("/v1/swift-codes/ABCDEF12XXX")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, response.etag())
+                .expectBody()
+                .jsonPath("$.swiftCode").isEqualTo("ABCDEF12XXX")
+                .jsonPath("$.branches[0].swiftCode").isEqualTo("ABCDEF12ABC");
+    }
+
+    @Test
+    void getSwiftDetails_shouldReturnNotModified_whenEtagMatches() {
+        CachedResponse response = cached(branch("ABCDEF12ABC"));
+        when(swiftCodeService.getSwiftDetailsResponse("ABCDEF12ABC")).thenReturn(Mono.just(response));
+
+        webTestClient.get().uri("/v1/swift-codes/ABCDEF12ABC")
+                .header(HttpHeaders.IF_NONE_MATCH, response.etag())
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getSwiftDetails_shouldReturnNotFound_whenServiceSignalsMissingCode() {
+        when(swiftCodeService.getSwiftDetailsResponse("NONEXISTENT"))
+                .thenReturn(Mono.error(new ResourceNotFoundException("SwiftCode", "swiftCode", "NONEXISTENT")));
+
+        webTestClient.get().uri("/v1/swift-codes/NONEXISTENT")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("SwiftCode not found with swiftCode: 'NONEXISTENT'");
+    }
+
+    @Test
+    void getSwiftByCountry_shouldReturnTheCachedDocument_whenItIsCurrent() {
+        CachedResponse response = cached(SwiftCodeMapper.countryISO2CodeDTO("PL", "POLAND", List.of(branch("ABCDEF12ABC"), branch("ABCDEF12XYZ"))));
+        when(swiftCodeService.getCachedSwiftCodesByCountryResponse("PL")).thenReturn(Mono.just(response));
+
+        webTestClient.get().uri("/v1/swift-codes/country/PL")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, response.etag())
+                .expectBody()
+                .jsonPath("$.countryISO2").isEqualTo("PL")
+                .jsonPath("$.countryName").isEqualTo("POLAND")
+                .jsonPath("$.swiftCodes.length()").isEqualTo(2)
+                .jsonPath("$.swiftCodes[1].swiftCode").isEqualTo("ABCDEF12XYZ");
+        verify(swiftCodeService, never()).streamSwiftCodesByCountryJson(any());
+    }
+
+    @Test
+    void getSwiftByCountry_shouldStreamTheDocumentInChunks_whenNotCached() throws IOException {
+        when(swiftCodeService.getCachedSwiftCodesByCountryResponse("PL")).thenReturn(Mono.empty());
+        when(swiftCodeService.streamSwiftCodesByCountryJson("PL")).thenReturn(Flux.just(
+                "{\"countryISO2\":\"PL\",\"countryName\":\"POLAND\",\"swiftCodes\":[".getBytes(StandardCharsets.UTF_8),
+                objectMapper.writeValueAsBytes(branch("ABCDEF12ABC")),
+                ",".getBytes(StandardCharsets.UTF_8),
+                objectMapper.writeValueAsBytes(branch("ABCDEF12XYZ")),
+                "]}".getBytes(StandardCharsets.UTF_8)));
+
+        List<byte[]> chunks = webTestClient.get().uri("/v1/swift-codes/country/PL")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().doesNotExist(HttpHeaders.ETAG)
+                .returnResult(byte[].class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(chunks);
+        assertTrue(chunks.size() > 1);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        chunks.forEach(body::writeBytes);
+        CountryISO2CodeDTO country = objectMapper.readValue(body.toByteArray(), CountryISO2CodeDTO.class);
+        assertEquals("POLAND", country.getCountryName());
+        assertEquals(2, country.getSwiftCodes().size());
+    }
+
+    @Test
+    void getSwiftByCountry_shouldSendGzipVariant_whenClientAcceptsIt() {
+        List<BranchDTO> branches = IntStream.range(0, 50).mapToObj(i -> branch("ABCDEF12%03d".formatted(i))).toList();
+        CachedResponse response = cached(SwiftCodeMapper.countryISO2CodeDTO("PL", "POLAND", branches));
+        when(swiftCodeService.getCachedSwiftCodesByCountryResponse("PL")).thenReturn(Mono.just(response));
+
+        webTestClient.get().uri("/v1/swift-codes/country/PL")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.ETAG, response.gzipEtag())
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody(byte[].class).isEqualTo(response.gzipBody());
+    }
+
+    @Test
+    void getSwiftByCountry_shouldReturnNotFound_whenCountryHasNoCodes() {
+        when(swiftCodeService.getCachedSwiftCodesByCountryResponse("ZZ")).thenReturn(Mono.empty());
+        when(swiftCodeService.streamSwiftCodesByCountryJson("ZZ"))
+                .thenReturn(Flux.error(new ResourceNotFoundException("Country", "countryISO2", "ZZ")));
+
+        webTestClient.get().uri("/v1/swift-codes/country/ZZ")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Country not found with countryISO2: 'ZZ'");
+    }
+
+    @Test
+    void getSwiftByCountryPage_shouldReturnBadRequest_whenLimitIsNotANumber() {
+        webTestClient.get().uri("/v1/swift-codes/country/PL?limit=abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid value for parameter 'limit'");
+
+        verifyNoInteractions(swiftCodeService);
+    }
+
+    @Test
+    void addSwiftBulk_shouldWriteNdjsonInChunks_andCombineTheResults() {
+        when(swiftCodeService.addSwiftCodes(anyList())).thenAnswer(invocation -> {
+            List<BranchDTO> chunk = invocation.getArgument(0);
+            return Mono.just(BulkOperationResponse.builder()
+                    .succeeded(chunk.size())
+                    .results(chunk.stream()
+                            .map(item -> BulkItemResult.builder().swiftCode(item.getSwiftCode()).status(BulkItemResult.Status.CREATED).build())
+                            .toList())
+                    .build());
+        });
+
+        webTestClient.post().uri("/v1/swift-codes/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"swiftCode\":\"ABCDEF12ABC\"}\n\n{\"swiftCode\":\"ABCDEF12XYZ\"}\n{\"swiftCode\":\"ABCDEF12XXX\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(3)
+                .jsonPath("$.results.length()").isEqualTo(3)
+                .jsonPath("$.results[2].swiftCode").isEqualTo("ABCDEF12XXX");
+
+        verify(swiftCodeService, times(2)).addSwiftCodes(anyList());
+    }
+
+    @Test
+    void streamSwiftByCountry_shouldWriteOneCodePerLine() {
+        when(swiftCodeService.streamSwiftCodesByCountry("PL"))
+                .thenReturn(Flux.just(branch("ABCDEF12ABC"), branch("ABCDEF12XYZ")));
+
+        webTestClient.get().uri("/v1/swift-codes/country/PL")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(BranchDTO.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void addSwift_shouldReturnValidationErrors_whenRequestBodyIsEmpty() {
+        webTestClient.post().uri("/v1/swift-codes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.swiftCode").isEqualTo("Swift code cannot be empty")
+                .jsonPath("$.errors.countryISO2").isEqualTo("Country ISO2 code cannot be empty");
+
+        verifyNoInteractions(swiftCodeService);
+    }
+
+    @Test
+    void addSwift_shouldReturnCreated() {
+        when(swiftCodeService.addSwiftCode(any())).thenReturn(Mono.just("Swift code added successfully"));
+
+        webTestClient.post().uri("/v1/swift-codes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(branch("ABCDEF12ABC"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Swift code added successfully");
+    }
+
+    private CachedResponse cached(Object value) {
+        SwiftCodeResponseCache cache = new SwiftCodeResponseCache(objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "gzipMinSize", 1024);
+        return cache.put("key", 0, value);
+    }
+
+    private static BranchDTO branch(String swiftCode) {
+        return BranchDTO.builder()
+                .swiftCode(swiftCode)
+                .bankName("Bank")
+                .address("Street")
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .isHeadquarter(false)
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.szymon.swiftcode.repository;
+
+import com.szymon.swiftcode.model.SwiftCode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SwiftCodeBulkWriterTest {
+
+    @Test
+    void appendCsvRow_shouldQuoteValuesAndLeaveNullsEmpty() {
+        SwiftCode swiftCode = SwiftCode.builder()
+                .swiftCode("PKOPPLPWXXX")
+                .countryISO2("PL")
+                .isHeadquarter(true)
+                .bankName("PKO \"BP\", S.A.")
+                .address(null)
+                .city("WARSZAWA")
+                .country("POLAND")
+                .timeZone("")
+                .build();
+
+        StringBuilder csv = new StringBuilder();
+        SwiftCodeBulkWriter.appendCsvRow(csv, swiftCode);
+
+        assertEquals("\"PKOPPLPWXXX\",\"PL\",true,\"PKO \"\"BP\"\", S.A.\",,\"WARSZAWA\",\"POLAND\",\"\",\"PKOPPLPW\"\n", csv.toString());
+    }
+}
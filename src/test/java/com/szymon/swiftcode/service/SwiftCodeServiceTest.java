@@ -1,22 +1,45 @@
 package com.szymon.swiftcode.service;
 
 import com.szymon.swiftcode.dto.BranchDTO;
+import com.szymon.swiftcode.dto.BulkItemResult;
+import com.szymon.swiftcode.dto.BulkOperationResponse;
 import com.szymon.swiftcode.dto.CountryISO2CodeDTO;
+import com.szymon.swiftcode.dto.CountrySwiftCodesPageDTO;
 import com.szymon.swiftcode.dto.HeadquarterDTO;
+import com.szymon.swiftcode.dto.SwiftCodeLookupResponse;
 import com.szymon.swiftcode.exceptions.DuplicateResourceException;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
 import com.szymon.swiftcode.exceptions.ResourceNotFoundException;
+import com.szymon.swiftcode.exceptions.WritePendingException;
+import com.szymon.swiftcode.index.SwiftCodeIndex;
+import com.szymon.swiftcode.index.SwiftCodeMembershipFilter;
+import com.szymon.swiftcode.index.SwiftCodeSnapshot;
+import com.szymon.swiftcode.metrics.ServiceMetrics;
 import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
 import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import com.szymon.swiftcode.repository.SwiftCodeRow;
+import com.szymon.swiftcode.writebehind.SwiftCodeWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +49,31 @@ class SwiftCodeServiceTest {
     @Mock
     private SwiftCodeRepository swiftCodeRepository;
 
+    @Mock
+    private SwiftCodeIndex swiftCodeIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SwiftCodeBulkWriter bulkWriter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SwiftCodeWriteBuffer writeBuffer;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    //not built, so it lets every code through unless a test stubs it
+    @Spy
+    private SwiftCodeMembershipFilter membershipFilter = new SwiftCodeMembershipFilter(null, new SimpleMeterRegistry());
+
+    @Spy
+    private ServiceMetrics metrics = new ServiceMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private SwiftCodeService swiftCodeService;
 
@@ -78,7 +126,7 @@ class SwiftCodeServiceTest {
 
     @Test
     void getSwiftDetails_ShouldReturnBranchDTO_WhenSwiftCodeIsBranch() {
-        when(swiftCodeRepository.findBySwiftCode("PKOPPLPW001")).thenReturn(branchSwiftCode);
+        when(swiftCodeRepository.findDetailsRows("PKOPPLPW001", "PKOPPLPW")).thenReturn(List.of(row(branchSwiftCode)));
 
         BranchDTO result = swiftCodeService.getSwiftDetails("PKOPPLPW001");
 
@@ -87,12 +135,12 @@ class SwiftCodeServiceTest {
         assertEquals("PKO Bank Polski Branch", result.getBankName());
         assertEquals("PL", result.getCountryISO2());
         assertFalse(result.getIsHeadquarter());
-        verify(swiftCodeRepository, times(1)).findBySwiftCode("PKOPPLPW001");
+        verify(swiftCodeRepository, times(1)).findDetailsRows("PKOPPLPW001", "PKOPPLPW");
     }
     @Test
     void getSwiftDetails_ShouldReturnHeadquarterDTO_WhenSwiftCodeIsHeadquarter() {
-        when(swiftCodeRepository.findBySwiftCode("PKOPPLPW")).thenReturn(headquarterSwiftCode);
-        when(swiftCodeRepository.findBySwiftCodeStartingWithAndIsHeadquarterFalse("PKOPPLPW")).thenReturn(branches);
+        when(swiftCodeRepository.findDetailsRows("PKOPPLPW", "PKOPPLPW"))
+                .thenReturn(List.of(row(headquarterSwiftCode), row(branches.get(0)), row(branches.get(1))));
 
         BranchDTO result = swiftCodeService.getSwiftDetails("PKOPPLPW");
 
@@ -104,13 +152,14 @@ class SwiftCodeServiceTest {
         assertEquals("PL", headquarterResult.getCountryISO2());
         assertTrue(headquarterResult.getIsHeadquarter());
         assertEquals(2, headquarterResult.getBranches().size());
-        verify(swiftCodeRepository, times(1)).findBySwiftCode("PKOPPLPW");
-        verify(swiftCodeRepository, times(1)).findBySwiftCodeStartingWithAndIsHeadquarterFalse("PKOPPLPW");
+        //one round trip for the headquarter and its branches
+        verify(swiftCodeRepository, times(1)).findDetailsRows("PKOPPLPW", "PKOPPLPW");
+        verifyNoMoreInteractions(swiftCodeRepository);
     }
 
     @Test
     void getSwiftDetails_ShouldThrowResourceNotFoundException_WhenSwiftCodeNotFound() {
-        when(swiftCodeRepository.findBySwiftCode("NONEXISTENT")).thenReturn(null);
+        when(swiftCodeRepository.findDetailsRows("NONEXISTENT", "NONEXIST")).thenReturn(List.of());
 
         ResourceNotFoundException exception = assertThrows(
                 ResourceNotFoundException.class,
@@ -118,13 +167,53 @@ class SwiftCodeServiceTest {
         );
 
         assertEquals("SwiftCode not found with swiftCode: 'NONEXISTENT'", exception.getMessage());
-        verify(swiftCodeRepository, times(1)).findBySwiftCode("NONEXISTENT");
+        verify(swiftCodeRepository, times(1)).findDetailsRows("NONEXISTENT", "NONEXIST");
+    }
+
+    @Test
+    void getSwiftCodesByCountry_ShouldQueryNormalizedCountryCode() {
+        when(swiftCodeRepository.findByCountryISO2("PL")).thenReturn(List.of(row(headquarterSwiftCode), row(branchSwiftCode)));
+
+        CountryISO2CodeDTO result = swiftCodeService.getSwiftCodesByCountry("pl");
+
+        assertEquals(2, result.getSwiftCodes().size());
+        verify(swiftCodeRepository).findByCountryISO2("PL");
+    }
+
+    @Test
+    void getSwiftDetails_ShouldSkipDatabase_WhenMembershipFilterRulesCodeOut() {
+        doReturn(false).when(membershipFilter).mightContain("NONEXISTENT");
+
+        assertThrows(ResourceNotFoundException.class, () -> swiftCodeService.getSwiftDetails("NONEXISTENT"));
+
+        verifyNoInteractions(swiftCodeRepository);
+    }
+
+    @Test
+    void lookupSwiftCodes_ShouldNotQueryCodesRuledOutByMembershipFilter() {
+        doReturn(false).when(membershipFilter).mightContain("NONEXISTENT");
+        when(swiftCodeRepository.findBySwiftCodeIn(List.of("PKOPPLPW001"))).thenReturn(List.of(branchSwiftCode));
+
+        SwiftCodeLookupResponse result = swiftCodeService.lookupSwiftCodes(List.of("NONEXISTENT", "PKOPPLPW001"));
+
+        assertEquals(List.of("NONEXISTENT"), result.getNotFound());
+        assertEquals(1, result.getFound().size());
+        verify(swiftCodeRepository).findBySwiftCodeIn(List.of("PKOPPLPW001"));
+    }
+
+    @Test
+    void addSwiftCode_ShouldAddCodeToMembershipFilter() {
+        when(swiftCodeRepository.existsBySwiftCode("BPHKPLPK")).thenReturn(false);
+
+        swiftCodeService.addSwiftCode(branchDTO);
+
+        verify(membershipFilter).add("BPHKPLPK");
     }
 
     @Test
     void getSwiftCodesByCountry_ShouldReturnCountryISO2CodeDTO_WhenCountryExists() {
-        List<SwiftCode> polandSwiftCodes = Arrays.asList(headquarterSwiftCode, branchSwiftCode);
-        when(swiftCodeRepository.findByCountryISO2IgnoreCase("PL")).thenReturn(polandSwiftCodes);
+        List<SwiftCodeRow> polandSwiftCodes = List.of(row(headquarterSwiftCode), row(branchSwiftCode));
+        when(swiftCodeRepository.findByCountryISO2("PL")).thenReturn(polandSwiftCodes);
 
         CountryISO2CodeDTO result = swiftCodeService.getSwiftCodesByCountry("PL");
 
@@ -132,12 +221,12 @@ class SwiftCodeServiceTest {
         assertEquals("PL", result.getCountryISO2());
         assertEquals("POLAND", result.getCountryName());
         assertEquals(2, result.getSwiftCodes().size());
-        verify(swiftCodeRepository, times(1)).findByCountryISO2IgnoreCase("PL");
+        verify(swiftCodeRepository, times(1)).findByCountryISO2("PL");
     }
 
     @Test
     void getSwiftCodesByCountry_ShouldThrowResourceNotFoundException_WhenCountryNotFound() {
-        when(swiftCodeRepository.findByCountryISO2IgnoreCase("XX")).thenReturn(Collections.emptyList());
+        when(swiftCodeRepository.findByCountryISO2("XX")).thenReturn(Collections.emptyList());
 
         ResourceNotFoundException exception = assertThrows(
                 ResourceNotFoundException.class,
@@ -145,12 +234,12 @@ class SwiftCodeServiceTest {
         );
 
         assertEquals("Country not found with countryISO2: 'XX'", exception.getMessage());
-        verify(swiftCodeRepository, times(1)).findByCountryISO2IgnoreCase("XX");
+        verify(swiftCodeRepository, times(1)).findByCountryISO2("XX");
     }
 
     @Test
     void deleteSwiftCode_ShouldThrowResourceNotFoundException_WhenSwiftCodeNotFound() {
-        when(swiftCodeRepository.existsBySwiftCode("NONEXISTENT")).thenReturn(false);
+        when(swiftCodeRepository.findCountryISO2BySwiftCode("NONEXISTENT")).thenReturn(null);
 
         ResourceNotFoundException exception = assertThrows(
                 ResourceNotFoundException.class,
@@ -158,10 +247,35 @@ class SwiftCodeServiceTest {
         );
 
         assertEquals("SwiftCode not found with swiftCode: 'NONEXISTENT'", exception.getMessage());
-        verify(swiftCodeRepository, times(1)).existsBySwiftCode("NONEXISTENT");
+        verify(swiftCodeRepository, times(1)).findCountryISO2BySwiftCode("NONEXISTENT");
         verify(swiftCodeRepository, never()).deleteBySwiftCode(anyString());
     }
 
+    @Test
+    void deleteSwiftCode_shouldRefuse_whenBufferedAddIsStillPending() {
+        when(writeBuffer.isPending("PKOPPLPW001")).thenReturn(true);
+
+        WritePendingException exception = assertThrows(
+                WritePendingException.class,
+                () -> swiftCodeService.deleteSwiftCode("PKOPPLPW001")
+        );
+
+        assertEquals("SwiftCode with swiftCode: 'PKOPPLPW001' is still being written, retry once it is persisted", exception.getMessage());
+        verify(swiftCodeRepository, never()).deleteBySwiftCode(anyString());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteSwiftCode_shouldPublishCountryOfDeletedRow() {
+        when(swiftCodeRepository.findCountryISO2BySwiftCode("PKOPPLPW001")).thenReturn("PL");
+
+        String result = swiftCodeService.deleteSwiftCode("PKOPPLPW001");
+
+        assertEquals("Swift code deleted successfully", result);
+        verify(swiftCodeRepository).deleteBySwiftCode("PKOPPLPW001");
+        verify(eventPublisher).publishEvent(SwiftCodeChangedEvent.deleted("PKOPPLPW001", "PL"));
+    }
+
     @Test
     void addSwiftCode_ShouldReturnSuccessMessage_WhenSwiftCodeNotExists() {
         when(swiftCodeRepository.existsBySwiftCode("BPHKPLPK")).thenReturn(false);
@@ -187,5 +301,238 @@ class SwiftCodeServiceTest {
         verify(swiftCodeRepository, never()).save(any(SwiftCode.class));
     }
 
+    @Test
+    void getSwiftDetails_ShouldUseSnapshot_WhenIndexIsReady() {
+        SwiftCode headquarter = SwiftCode.builder()
+                .swiftCode("PKOPPLPWXXX")
+                .bankName("PKO Bank Polski")
+                .countryISO2("PL")
+                .country("POLAND")
+                .isHeadquarter(true)
+                .build();
+        when(swiftCodeIndex.current()).thenReturn(SwiftCodeSnapshot.of(List.of(headquarter, branchSwiftCode)));
+
+        BranchDTO result = swiftCodeService.getSwiftDetails("PKOPPLPWXXX");
+
+        assertInstanceOf(HeadquarterDTO.class, result);
+        assertEquals(1, ((HeadquarterDTO) result).getBranches().size());
+        verifyNoInteractions(swiftCodeRepository);
+    }
+
+    @Test
+    void getSwiftCodesByCountry_ShouldUseSnapshot_WhenIndexIsReady() {
+        when(swiftCodeIndex.current()).thenReturn(SwiftCodeSnapshot.of(List.of(headquarterSwiftCode, branchSwiftCode)));
+
+        CountryISO2CodeDTO result = swiftCodeService.getSwiftCodesByCountry("pl");
+
+        assertEquals("POLAND", result.getCountryName());
+        assertEquals(2, result.getSwiftCodes().size());
+        verifyNoInteractions(swiftCodeRepository);
+    }
+
+    @Test
+    void addSwiftCode_ShouldThrowDuplicateResourceException_WhenBufferedAddIsPending() {
+        when(writeBuffer.isPending("BPHKPLPK")).thenReturn(true);
+
+        assertThrows(DuplicateResourceException.class, () -> swiftCodeService.addSwiftCode(branchDTO));
+
+        verify(swiftCodeRepository, never()).save(any(SwiftCode.class));
+    }
 
-}
\ No newline at end of file
+    @Test
+    void addSwiftCode_ShouldPublishChangeEvent() {
+        when(swiftCodeRepository.existsBySwiftCode("BPHKPLPK")).thenReturn(false);
+
+        swiftCodeService.addSwiftCode(branchDTO);
+
+        verify(eventPublisher).publishEvent(any(SwiftCodeChangedEvent.class));
+    }
+
+    @Test
+    void lookupSwiftCodes_ShouldBatchDatabaseQueries_WhenIndexIsNotReady() {
+        SwiftCode headquarter = SwiftCode.builder()
+                .swiftCode("PKOPPLPWXXX")
+                .bankName("PKO Bank Polski")
+                .countryISO2("PL")
+                .country("POLAND")
+                .isHeadquarter(true)
+                .build();
+        when(swiftCodeRepository.findBySwiftCodeIn(List.of("PKOPPLPWXXX", "PKOPPLPW001", "NONEXISTENT")))
+                .thenReturn(List.of(headquarter, branchSwiftCode));
+        when(swiftCodeRepository.findBranchesByBankPrefixes(List.of("PKOPPLPW"))).thenReturn(branches);
+
+        SwiftCodeLookupResponse result = swiftCodeService.lookupSwiftCodes(
+                List.of("PKOPPLPWXXX", "PKOPPLPW001", "NONEXISTENT", "PKOPPLPW001"));
+
+        assertEquals(2, result.getFound().size());
+        assertEquals(2, ((HeadquarterDTO) result.getFound().get(0)).getBranches().size());
+        assertEquals("PKOPPLPW001", result.getFound().get(1).getSwiftCode());
+        assertEquals(List.of("NONEXISTENT"), result.getNotFound());
+        verify(swiftCodeRepository, never()).findDetailsRows(anyString(), anyString());
+    }
+
+    //addSwiftCodes
+    @Test
+    void addSwiftCodes_shouldInsertNewCodesAndReportInvalidAndDuplicates() {
+        BranchDTO existing = branchDTO;
+        BranchDTO created = bulkBranch("PKOPPLPW003");
+        created.setCountryISO2("pl");
+        BranchDTO repeated = bulkBranch("PKOPPLPW003");
+        BranchDTO invalid = bulkBranch("PKO");
+
+        when(swiftCodeRepository.findExistingSwiftCodes(List.of(existing.getSwiftCode(), "PKOPPLPW003")))
+                .thenReturn(List.of(existing.getSwiftCode()));
+        when(bulkWriter.insertNewInTransaction(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkOperationResponse response = swiftCodeService.addSwiftCodes(List.of(existing, created, repeated, invalid));
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        assertEquals(List.of(BulkItemResult.Status.DUPLICATE, BulkItemResult.Status.CREATED,
+                        BulkItemResult.Status.DUPLICATE, BulkItemResult.Status.INVALID),
+                response.getResults().stream().map(BulkItemResult::getStatus).toList());
+        assertEquals("Swift code must be between 8 and 11 characters", response.getResults().get(3).getMessage());
+
+        ArgumentCaptor<List<SwiftCode>> inserted = ArgumentCaptor.captor();
+        verify(bulkWriter).insertNewInTransaction(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals("PL", inserted.getValue().getFirst().getCountryISO2());
+        verify(eventPublisher).publishEvent(any(SwiftCodeChangedEvent.class));
+        verify(swiftCodeRepository, never()).save(any());
+    }
+
+    @Test
+    void addSwiftCodes_shouldNotWrite_whenNothingIsValid() {
+        BulkOperationResponse response = swiftCodeService.addSwiftCodes(List.of(BranchDTO.builder().build()));
+
+        assertEquals(0, response.getSucceeded());
+        assertEquals(BulkItemResult.Status.INVALID, response.getResults().getFirst().getStatus());
+        verify(bulkWriter, never()).insertNewInTransaction(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void addSwiftCodes_shouldReportDuplicate_whenConcurrentRequestInsertedTheCodeFirst() {
+        BranchDTO first = bulkBranch("PKOPPLPW003");
+        BranchDTO raced = bulkBranch("PKOPPLPW004");
+        when(swiftCodeRepository.findExistingSwiftCodes(List.of("PKOPPLPW003", "PKOPPLPW004"))).thenReturn(List.of());
+        //PKOPPLPW004 was committed by another request between the check and the insert
+        when(bulkWriter.insertNewInTransaction(anyList()))
+                .thenAnswer(invocation -> List.of(invocation.<List<SwiftCode>>getArgument(0).getFirst()));
+
+        BulkOperationResponse response = swiftCodeService.addSwiftCodes(List.of(first, raced));
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertEquals(List.of(BulkItemResult.Status.CREATED, BulkItemResult.Status.DUPLICATE),
+                response.getResults().stream().map(BulkItemResult::getStatus).toList());
+        verify(eventPublisher).publishEvent(argThat((SwiftCodeChangedEvent event) -> event.changes().size() == 1
+                && event.changes().getFirst().swiftCode().equals("PKOPPLPW003")));
+    }
+
+    //deleteSwiftCodes
+    @Test
+    void deleteSwiftCodes_shouldDeleteExistingAndReportMissing() {
+        when(swiftCodeRepository.findRowsBySwiftCodeIn(List.of("PKOPPLPW001", "NONEXIST123")))
+                .thenReturn(List.of(new SwiftCodeRow("PKOPPLPW001", "PKO Bank Polski Branch", "Warsaw", "PL", "POLAND", false)));
+
+        BulkOperationResponse response = swiftCodeService.deleteSwiftCodes(List.of("PKOPPLPW001", "NONEXIST123", " "));
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals(List.of(BulkItemResult.Status.DELETED, BulkItemResult.Status.NOT_FOUND, BulkItemResult.Status.INVALID),
+                response.getResults().stream().map(BulkItemResult::getStatus).toList());
+        verify(bulkWriter).deleteInTransaction(List.of("PKOPPLPW001"));
+        verify(eventPublisher).publishEvent(new SwiftCodeChangedEvent(List.of(SwiftCodeChangedEvent.deletedChange("PKOPPLPW001", "PL"))));
+    }
+
+    @Test
+    void deleteSwiftCodes_shouldReportPending_whenBufferedAddIsNotWrittenYet() {
+        when(writeBuffer.isPending("PKOPPLPW001")).thenReturn(true);
+
+        BulkOperationResponse response = swiftCodeService.deleteSwiftCodes(List.of("PKOPPLPW001"));
+
+        assertEquals(0, response.getSucceeded());
+        assertEquals(BulkItemResult.Status.PENDING, response.getResults().getFirst().getStatus());
+        verify(bulkWriter, never()).deleteInTransaction(anyList());
+    }
+
+    //getSwiftCodesByCountryPage
+    @Test
+    void getSwiftCodesByCountryPage_shouldReturnCursor_whenMoreRowsExist() {
+        when(swiftCodeRepository.findCountryPage("PL", "", Limit.of(3)))
+                .thenReturn(List.of(headquarterSwiftCode, branchSwiftCode, branches.get(1)));
+
+        CountrySwiftCodesPageDTO page = swiftCodeService.getSwiftCodesByCountryPage("PL", null, 2);
+
+        assertEquals(2, page.getSwiftCodes().size());
+        assertEquals("POLAND", page.getCountryName());
+        assertEquals("PKOPPLPW001", page.getNextCursor());
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldReturnLastPageWithoutCursor() {
+        when(swiftCodeRepository.findCountryPage("PL", "PKOPPLPW001", Limit.of(3))).thenReturn(List.of(branches.get(1)));
+
+        CountrySwiftCodesPageDTO page = swiftCodeService.getSwiftCodesByCountryPage("PL", "PKOPPLPW001", 2);
+
+        assertEquals(1, page.getSwiftCodes().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldThrow_whenFirstPageIsEmpty() {
+        when(swiftCodeRepository.findCountryPage("XX", "", Limit.of(11))).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> swiftCodeService.getSwiftCodesByCountryPage("XX", null, 10));
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldThrow_whenCountryIsUnknownAndCursorIsSet() {
+        when(swiftCodeRepository.findCountryPage("XX", "AAAAXXXXXXX", Limit.of(11))).thenReturn(List.of());
+        when(swiftCodeRepository.existsByCountryISO2("XX")).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> swiftCodeService.getSwiftCodesByCountryPage("XX", "AAAAXXXXXXX", 10));
+    }
+
+    @Test
+    void getSwiftCodesByCountryPage_shouldReturnEmptyPage_whenCursorIsPastTheLastCode() {
+        when(swiftCodeRepository.findCountryPage("PL", "ZZZZPLPWXXX", Limit.of(11))).thenReturn(List.of());
+        when(swiftCodeRepository.existsByCountryISO2("PL")).thenReturn(true);
+
+        CountrySwiftCodesPageDTO page = swiftCodeService.getSwiftCodesByCountryPage("PL", "ZZZZPLPWXXX", 10);
+
+        assertTrue(page.getSwiftCodes().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    //streamSwiftCodesByCountry
+    @Test
+    void streamSwiftCodesByCountry_shouldDetachEveryRowAfterWritingIt() {
+        when(swiftCodeRepository.streamByCountryISO2("PL")).thenReturn(Stream.of(headquarterSwiftCode, branchSwiftCode));
+        List<String> written = new ArrayList<>();
+
+        swiftCodeService.streamSwiftCodesByCountry("PL", dto -> written.add(dto.getSwiftCode()));
+
+        assertEquals(List.of("PKOPPLPW", "PKOPPLPW001"), written);
+        verify(entityManager).detach(headquarterSwiftCode);
+        verify(entityManager).detach(branchSwiftCode);
+    }
+
+    private BranchDTO bulkBranch(String swiftCode) {
+        return BranchDTO.builder()
+                .swiftCode(swiftCode)
+                .bankName("PKO Bank Polski")
+                .address("ul. Puławska 15, 02-515 Warsaw")
+                .countryISO2("PL")
+                .countryName("POLAND")
+                .isHeadquarter(false)
+                .build();
+    }
+
+    private static SwiftCodeRow row(SwiftCode swiftCode) {
+        return new SwiftCodeRow(swiftCode.getSwiftCode(), swiftCode.getBankName(), swiftCode.getAddress(),
+                swiftCode.getCountryISO2(), swiftCode.getCountry(), swiftCode.isHeadquarter());
+    }
+}
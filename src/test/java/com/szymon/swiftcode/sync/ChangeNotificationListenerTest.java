@@ -0,0 +1,84 @@
+package com.szymon.swiftcode.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeNotificationListenerTest {
+    private static final String OTHER_INSTANCE = "other-instance";
+
+    @Mock
+    private ChangeNotificationPublisher notificationPublisher;
+
+    @Mock
+    private SwiftCodeRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChangeNotificationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ChangeNotificationListener(notificationPublisher, repository, eventPublisher, objectMapper, new SimpleMeterRegistry());
+        lenient().when(notificationPublisher.origin()).thenReturn("this-instance");
+    }
+
+    @Test
+    void apply_shouldReplayChangesWithEntitiesReadBack() throws Exception {
+        SwiftCode added = SwiftCode.builder().swiftCode("ABCDEF12ABC").countryISO2("PL").build();
+        when(repository.findBySwiftCodeIn(List.of("ABCDEF12ABC", "ABCDEF12GON"))).thenReturn(List.of(added));
+
+        listener.apply(payload(OTHER_INSTANCE, false,
+                new ChangeNotification.ChangedCode(SwiftCodeChangedEvent.Operation.ADDED, "ABCDEF12ABC", "PL"),
+                new ChangeNotification.ChangedCode(SwiftCodeChangedEvent.Operation.ADDED, "ABCDEF12GON", "PL"),
+                new ChangeNotification.ChangedCode(SwiftCodeChangedEvent.Operation.DELETED, "ABCDEF12XYZ", "PL")));
+
+        ArgumentCaptor<SwiftCodeChangedEvent> event = ArgumentCaptor.forClass(SwiftCodeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().remote());
+        assertEquals(List.of(
+                SwiftCodeChangedEvent.addedChange(added),
+                //gone again by the time the notification arrived
+                SwiftCodeChangedEvent.deletedChange("ABCDEF12GON", "PL"),
+                SwiftCodeChangedEvent.deletedChange("ABCDEF12XYZ", "PL")), event.getValue().changes());
+    }
+
+    @Test
+    void apply_shouldRebuildOnReloadOfAnotherInstance() throws Exception {
+        listener.apply(payload(OTHER_INSTANCE, true));
+
+        verify(eventPublisher).publishEvent(DatasetReloadedEvent.fromOtherInstance());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void apply_shouldIgnoreOwnNotificationsAndMalformedPayloads() throws Exception {
+        listener.apply(payload("this-instance", false,
+                new ChangeNotification.ChangedCode(SwiftCodeChangedEvent.Operation.DELETED, "ABCDEF12XYZ", "PL")));
+        listener.apply("not json");
+
+        verifyNoInteractions(eventPublisher, repository);
+    }
+
+    private String payload(String origin, boolean reload, ChangeNotification.ChangedCode... changes) throws Exception {
+        return objectMapper.writeValueAsString(new ChangeNotification(origin, 1L, reload, List.of(changes)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.szymon.swiftcode.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.szymon.swiftcode.event.DatasetReloadedEvent;
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeNotificationPublisherTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ChangeNotificationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new ChangeNotificationPublisher(jdbcTemplate, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "datasourceUrl", "jdbc:postgresql://localhost:5432/swift_db");
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldSplitLargeWritesOverSeveralNotificationsWithOneVersion() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(7L);
+        List<SwiftCodeChangedEvent.Change> changes = IntStream.range(0, 250)
+                .mapToObj(i -> SwiftCodeChangedEvent.deletedChange("CODE%04dXXX".formatted(i), "PL"))
+                .toList();
+
+        publisher.onSwiftCodeChanged(new SwiftCodeChangedEvent(changes));
+
+        ArgumentCaptor<String> payloads = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).queryForList(eq("select pg_notify(?, ?)"), eq(ChangeNotificationPublisher.CHANNEL), payloads.capture());
+        List<ChangeNotification> notifications = payloads.getAllValues().stream()
+                .map(payload -> read(payload))
+                .toList();
+        assertEquals(List.of(100, 100, 50), notifications.stream().map(n -> n.changes().size()).toList());
+        assertTrue(notifications.stream().allMatch(n -> n.version() == 7L && n.origin().equals(publisher.origin())));
+        assertTrue(payloads.getAllValues().stream().allMatch(payload -> payload.length() < 8000));
+    }
+
+    @Test
+    void onSwiftCodeChanged_shouldNotSendOnChangesReplayedFromAnotherInstance() {
+        publisher.onSwiftCodeChanged(SwiftCodeChangedEvent.fromOtherInstance(List.of(SwiftCodeChangedEvent.deletedChange("ABCDEF12XXX", "PL"))));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void onDatasetReloaded_shouldOnlyAnnounceReloadsThatWroteTheTable() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+
+        publisher.onDatasetReloaded(DatasetReloadedEvent.local(false));
+        publisher.onDatasetReloaded(DatasetReloadedEvent.fromOtherInstance());
+        publisher.onDatasetReloaded(DatasetReloadedEvent.local(true));
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void isActive_shouldBeFalseForOtherDatabases() {
+        ReflectionTestUtils.setField(publisher, "datasourceUrl", "jdbc:h2:mem:test");
+
+        publisher.onDatasetReloaded(DatasetReloadedEvent.local(true));
+
+        assertFalse(publisher.isActive());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private ChangeNotification read(String payload) {
+        try {
+            return objectMapper.readValue(payload, ChangeNotification.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
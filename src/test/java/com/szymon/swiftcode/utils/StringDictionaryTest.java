@@ -0,0 +1,37 @@
+package com.szymon.swiftcode.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void encode_shouldReturnOneInstancePerValue() {
+        StringDictionary dictionary = new StringDictionary();
+
+        String first = dictionary.encode(new String("POLAND"));
+        String second = dictionary.encode(new String("POLAND"));
+
+        assertSame(first, second);
+        assertNull(dictionary.encode(null));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void encode_shouldDropValuesNoLongerReferenced() throws InterruptedException {
+        StringDictionary dictionary = new StringDictionary();
+        String kept = dictionary.encode(new String("POLAND"));
+        for (int i = 0; i < 1000; i++) {
+            dictionary.encode("BANK " + i);
+        }
+
+        for (int attempt = 0; attempt < 50 && dictionary.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, dictionary.size());
+        assertSame(kept, dictionary.encode(new String("POLAND")));
+    }
+}
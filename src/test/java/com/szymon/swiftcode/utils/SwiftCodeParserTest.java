@@ -1,21 +1,15 @@
 package com.szymon.swiftcode.utils;
 
 import com.szymon.swiftcode.model.SwiftCode;
-import com.szymon.swiftcode.repository.SwiftCodeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.poi.ss.usermodel.Cell;
@@ -24,17 +18,9 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 public class SwiftCodeParserTest {
 
-    @Mock
-    private SwiftCodeRepository repository;
-
-    @Captor
-    private ArgumentCaptor<List<SwiftCode>> swiftCaptor;
-
     private SwiftCodeParser parser;
 
     @TempDir
@@ -42,21 +28,16 @@ public class SwiftCodeParserTest {
 
     @BeforeEach
     void setUp() {
-        parser = new SwiftCodeParser(repository);
+        parser = new SwiftCodeParser();
     }
 
     @Test
     void testParseSwiftCode() throws IOException {
-        FileInputStream file = new FileInputStream("src/test/resources/example.xlsx");
-
-        parser.parseSaveExcel(file);
+        List<SwiftCode> parsed = parse(new File("src/test/resources/example.xlsx"));
 
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
+        assertEquals(7, parsed.size());
 
-        assertEquals(7, savedEntities.size());
-
-        SwiftCode model = savedEntities.getFirst();
+        SwiftCode model = parsed.getFirst();
         assertEquals("AAISALTRXXX", model.getSwiftCode());
         assertEquals("UNITED BANK OF ALBANIA SH.A", model.getBankName());
         assertEquals("HYRJA 3 RR. DRITAN HOXHA ND. 11 TIRANA, TIRANA, 1023", model.getAddress());
@@ -69,15 +50,9 @@ public class SwiftCodeParserTest {
     //one
     @Test
     void testParseSwiftCodeWithHeadquarter() throws IOException {
-        File testFile = createTestExcelWithHeadquarter();
-        FileInputStream fis = new FileInputStream(testFile);
-
-        parser.parseSaveExcel(fis);
+        List<SwiftCode> parsed = parse(createTestExcelWithHeadquarter());
 
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
-
-        SwiftCode headquarter = savedEntities.stream()
+        SwiftCode headquarter = parsed.stream()
                 .filter(SwiftCode::isHeadquarter)
                 .findFirst()
                 .orElse(null);
@@ -89,43 +64,27 @@ public class SwiftCodeParserTest {
 
     @Test
     void testParseEmptySwiftCode() throws IOException {
-        File testFile = createTestExcelWithEmptySwiftCode();
-        FileInputStream fis = new FileInputStream(testFile);
-
-        parser.parseSaveExcel(fis);
-
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
+        List<SwiftCode> parsed = parse(createTestExcelWithEmptySwiftCode());
 
-        assertEquals(1, savedEntities.size());
-        assertEquals("VALIDCODE", savedEntities.getFirst().getSwiftCode());
+        assertEquals(1, parsed.size());
+        assertEquals("VALIDCODE", parsed.getFirst().getSwiftCode());
     }
 
     @Test
     void testParseEmptyExcel() throws IOException {
-        File testFile = createEmptyExcel();
-        FileInputStream fis = new FileInputStream(testFile);
+        List<String[]> rows = new ArrayList<>();
 
-        parser.parseSaveExcel(fis);
+        parser.streamRows(createEmptyExcel(), rows::add);
 
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
-
-        assertTrue(savedEntities.isEmpty());
+        assertTrue(rows.isEmpty());
     }
 
     @Test
     void testParseMissingFields() throws IOException {
-        File testFile = createTestExcelWithMissingFields();
-        FileInputStream fis = new FileInputStream(testFile);
-
-        parser.parseSaveExcel(fis);
+        List<SwiftCode> parsed = parse(createTestExcelWithMissingFields());
 
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
-
-        assertEquals(1, savedEntities.size());
-        SwiftCode entity = savedEntities.get(0);
+        assertEquals(1, parsed.size());
+        SwiftCode entity = parsed.get(0);
         assertEquals("SWIFTCODE", entity.getSwiftCode());
         assertNull(entity.getBankName());
         assertEquals("Warsaw", entity.getCity());
@@ -133,30 +92,51 @@ public class SwiftCodeParserTest {
 
     @Test
     void testParseTrimmedValues() throws IOException {
-        File testFile = createTestExcelWithWhitespaces();
-        FileInputStream fis = new FileInputStream(testFile);
-
-        parser.parseSaveExcel(fis);
-
-        verify(repository).saveAll(swiftCaptor.capture());
-        List<SwiftCode> savedEntities = swiftCaptor.getValue();
+        List<SwiftCode> parsed = parse(createTestExcelWithWhitespaces());
 
-        assertEquals(1, savedEntities.size());
-        SwiftCode entity = savedEntities.getFirst();
+        assertEquals(1, parsed.size());
+        SwiftCode entity = parsed.getFirst();
         assertEquals("TRIMCODE", entity.getSwiftCode());
         assertEquals("Test Bank Name", entity.getBankName());
     }
 
+    //the workbook parser read numeric cells as null, the sax reader keeps them as excel shows them
+    @Test
+    void testParseNumericCellsAsDisplayedText() throws IOException {
+        List<SwiftCode> parsed = parse(createTestExcelWithNumericCells());
+
+        assertEquals(1, parsed.size());
+        assertEquals("1023", parsed.getFirst().getAddress());
+        assertEquals("Warsaw", parsed.getFirst().getCity());
+    }
+
     @Test
     void testExceptionHandling() {
-        assertThrows(IOException.class, () -> {
-            FileInputStream fis = new FileInputStream("non_existing_file.xlsx");
-            parser.parseSaveExcel(fis);
-        });
+        assertThrows(IOException.class, () -> parser.streamRows(new File("non_existing_file.xlsx"), cells -> {
+        }));
+    }
 
-        verify(repository, never()).saveAll(any());
+    @Test
+    void testParseSharesRepeatedValues() throws IOException {
+        List<SwiftCode> parsed = parse(createTestExcelWithHeadquarter());
+
+        assertEquals(2, parsed.size());
+        assertSame(parsed.get(0).getCountry(), parsed.get(1).getCountry());
+        assertSame(parsed.get(0).getTimeZone(), parsed.get(1).getTimeZone());
+        assertSame(parsed.get(0).getCountryISO2(), parsed.get(1).getCountryISO2());
     }
 
+    //rows mapped the way the import maps them, invalid ones dropped
+    private List<SwiftCode> parse(File file) throws IOException {
+        List<SwiftCode> parsed = new ArrayList<>();
+        parser.streamRows(file, cells -> {
+            SwiftCode swiftCode = parser.toSwiftCode(cells);
+            if (swiftCode != null) {
+                parsed.add(swiftCode);
+            }
+        });
+        return parsed;
+    }
 
     private File createTestExcelWithHeadquarter() throws IOException {
         XSSFWorkbook workbook = new XSSFWorkbook();
@@ -251,6 +231,25 @@ public class SwiftCodeParserTest {
         return saveWorkbookToTempFile(workbook, "missing_fields.xlsx");
     }
 
+    private File createTestExcelWithNumericCells() throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet("Sheet1");
+
+        Row headerRow = sheet.createRow(0);
+        createHeader(headerRow);
+
+        Row dataRow = sheet.createRow(1);
+        createCell(dataRow, 0, "PL");
+        createCell(dataRow, 1, "NUMERICPLXXX");
+        createCell(dataRow, 3, "Numeric Bank");
+        dataRow.createCell(4).setCellValue(1023);
+        createCell(dataRow, 5, "Warsaw");
+        createCell(dataRow, 6, "Poland");
+        createCell(dataRow, 7, "Europe/Warsaw");
+
+        return saveWorkbookToTempFile(workbook, "numeric.xlsx");
+    }
+
     private File createTestExcelWithWhitespaces() throws IOException {
         XSSFWorkbook workbook = new XSSFWorkbook();
         Sheet sheet = workbook.createSheet("Sheet1");
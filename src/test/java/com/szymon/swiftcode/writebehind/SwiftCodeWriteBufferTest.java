@@ -0,0 +1,131 @@
+package com.szymon.swiftcode.writebehind;
+
+import com.szymon.swiftcode.event.SwiftCodeChangedEvent;
+import com.szymon.swiftcode.exceptions.DuplicateResourceException;
+import com.szymon.swiftcode.exceptions.ServiceUnavailableException;
+import com.szymon.swiftcode.model.SwiftCode;
+import com.szymon.swiftcode.repository.SwiftCodeBulkWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SwiftCodeWriteBufferTest {
+    private SwiftCodeBulkWriter bulkWriter;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private SwiftCodeWriteBuffer writeBuffer;
+
+    @BeforeEach
+    void setUp() {
+        bulkWriter = mock(SwiftCodeBulkWriter.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        writeBuffer = new SwiftCodeWriteBuffer(bulkWriter, mock(PlatformTransactionManager.class), eventPublisher, meterRegistry);
+        ReflectionTestUtils.setField(writeBuffer, "enabled", true);
+        ReflectionTestUtils.setField(writeBuffer, "capacity", 2);
+        ReflectionTestUtils.setField(writeBuffer, "batchSize", 10);
+        //long enough that nothing is flushed before stop() drains the queue
+        ReflectionTestUtils.setField(writeBuffer, "flushIntervalMs", 60_000L);
+    }
+
+    @Test
+    void stop_shouldFlushAcceptedAddsInOneBatch() {
+        writeBuffer.start();
+        writeBuffer.enqueue(swiftCode("PKOPPLPWXXX"));
+        writeBuffer.enqueue(swiftCode("PKOPPLPWABC"));
+        assertTrue(writeBuffer.isPending("PKOPPLPWABC"));
+
+        writeBuffer.stop();
+
+        verify(bulkWriter, times(1)).insertInTransaction(argThat(batch -> batch.size() == 2));
+        ArgumentCaptor<SwiftCodeChangedEvent> event = ArgumentCaptor.forClass(SwiftCodeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(2, event.getValue().changes().size());
+        assertFalse(writeBuffer.isPending("PKOPPLPWABC"));
+        assertFalse(writeBuffer.isAccepting());
+        assertEquals(2, meterRegistry.counter("swift.write.behind.rows", "outcome", "persisted").count());
+    }
+
+    @Test
+    void enqueue_shouldRejectPendingDuplicate_andFullQueue() {
+        writeBuffer.start();
+        writeBuffer.enqueue(swiftCode("PKOPPLPWXXX"));
+
+        assertThrows(DuplicateResourceException.class, () -> writeBuffer.enqueue(swiftCode("PKOPPLPWXXX")));
+        writeBuffer.enqueue(swiftCode("PKOPPLPWABC"));
+        assertThrows(ServiceUnavailableException.class, () -> writeBuffer.enqueue(swiftCode("PKOPPLPWDEF")));
+        assertFalse(writeBuffer.isPending("PKOPPLPWDEF"));
+
+        writeBuffer.stop();
+        assertThrows(ServiceUnavailableException.class, () -> writeBuffer.enqueue(swiftCode("PKOPPLPWDEF")));
+    }
+
+    @Test
+    void flush_shouldRetryRowsOneByOne_andRecordTheFailingRow() {
+        SwiftCode duplicate = swiftCode("PKOPPLPWXXX");
+        doThrow(new DuplicateKeyException("duplicate key"))
+                .when(bulkWriter).insertInTransaction(argThat(batch -> batch.contains(duplicate)));
+
+        writeBuffer.flush(List.of(duplicate, swiftCode("PKOPPLPWABC")));
+
+        verify(bulkWriter, times(3)).insertInTransaction(anyList());
+        assertEquals("SwiftCode already exists with swiftCode: 'PKOPPLPWXXX'", writeBuffer.failure("PKOPPLPWXXX"));
+        assertNull(writeBuffer.failure("PKOPPLPWABC"));
+        assertEquals(1, meterRegistry.counter("swift.write.behind.rows", "outcome", "failed").count());
+        assertEquals(1, meterRegistry.counter("swift.write.behind.rows", "outcome", "persisted").count());
+    }
+
+    @Test
+    void flushLoop_shouldFailTheBatchAndKeepRunning_whenTransactionCannotStart() throws InterruptedException {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenReturn(null);
+        writeBuffer = new SwiftCodeWriteBuffer(bulkWriter, transactionManager, eventPublisher, meterRegistry);
+        ReflectionTestUtils.setField(writeBuffer, "enabled", true);
+        ReflectionTestUtils.setField(writeBuffer, "capacity", 1);
+        ReflectionTestUtils.setField(writeBuffer, "batchSize", 10);
+        ReflectionTestUtils.setField(writeBuffer, "flushIntervalMs", 1L);
+
+        writeBuffer.start();
+        writeBuffer.enqueue(swiftCode("PKOPPLPWXXX"));
+        for (int attempt = 0; attempt < 500 && writeBuffer.isPending("PKOPPLPWXXX"); attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertFalse(writeBuffer.isPending("PKOPPLPWXXX"));
+        assertEquals("Could not write swift code: Connection refused", writeBuffer.failure("PKOPPLPWXXX"));
+
+        //the permit came back and the flusher is still there to write the next add
+        writeBuffer.enqueue(swiftCode("PKOPPLPWABC"));
+        writeBuffer.stop();
+
+        verify(bulkWriter).insertInTransaction(List.of(swiftCode("PKOPPLPWABC")));
+        assertFalse(writeBuffer.isPending("PKOPPLPWABC"));
+        assertNull(writeBuffer.failure("PKOPPLPWABC"));
+        assertEquals(1, meterRegistry.counter("swift.write.behind.rows", "outcome", "failed").count());
+        assertEquals(1, meterRegistry.counter("swift.write.behind.rows", "outcome", "persisted").count());
+    }
+
+    private static SwiftCode swiftCode(String code) {
+        return SwiftCode.builder()
+                .swiftCode(code)
+                .countryISO2("PL")
+                .country("POLAND")
+                .bankName("PKO BANK POLSKI S.A.")
+                .isHeadquarter(code.endsWith("XXX"))
+                .build();
+    }
+}